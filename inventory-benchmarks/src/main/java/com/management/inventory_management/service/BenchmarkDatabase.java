@@ -0,0 +1,72 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.InventoryManagementApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Boots the application without the web layer on a file based H2 database in MySQL mode under
+// target/benchmark-db. Seed data is generated from the row number only, so every run and every
+// machine benchmarks the same rows, and a seeded database is reused by later runs.
+final class BenchmarkDatabase {
+
+    static final String SEED_START = "TIMESTAMP '2024-01-01 00:00:00'";
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(String name, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:./target/benchmark-db/" + name
+                        + ";MODE=MySQL;CACHE_SIZE=262144",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                // Keep background compaction from running in the middle of a measurement
+                "--inventory.snapshot.compact-interval-ms=86400000",
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        // Command line arguments, so they win over the MySQL settings in application.properties
+        return new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    // Returns the id of the item with this name, creating it with the given stock if needed
+    static long seedItem(JdbcTemplate jdbc, String name, int stock) {
+        List<Long> ids = jdbc.queryForList("SELECT id FROM items WHERE name = ?", Long.class, name);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+        jdbc.update("INSERT INTO items (name, price, current_stock) VALUES (?, 1000.0, ?)", name, stock);
+        return jdbc.queryForObject("SELECT id FROM items WHERE name = ?", Long.class, name);
+    }
+
+    // Ledger rows 1..rows spread over the given item ids: row x belongs to item firstItemId + x % items,
+    // has qty 1 + x % 7, is a withdrawal when x % 3 == 0 and is dated x seconds after SEED_START.
+    // current_stock is set to the ledger sum and each item gets a snapshot covering all but its
+    // last snapshotTail rows, which is the shape the compactor leaves behind.
+    static void seedLedger(JdbcTemplate jdbc, long firstItemId, int items, int rows, int snapshotTail) {
+        Integer existing = jdbc.queryForObject("SELECT COUNT(*) FROM inventory", Integer.class);
+        if (existing != null && existing >= rows) {
+            return;
+        }
+        jdbc.update("INSERT INTO inventory (id, item_id, qty, type, transaction_date) " +
+                "SELECT X, ? + MOD(X, ?), 1 + MOD(X, 7), CASE WHEN MOD(X, 3) = 0 THEN 'W' ELSE 'T' END, " +
+                "DATEADD('SECOND', X, " + SEED_START + ") FROM SYSTEM_RANGE(1, ?)", firstItemId, items, rows);
+        jdbc.update("ALTER SEQUENCE inventory_seq RESTART WITH " + (rows + 1));
+        jdbc.update("UPDATE items i SET current_stock = (SELECT COALESCE(SUM(CASE WHEN l.type = 'T' " +
+                "THEN l.qty ELSE -l.qty END), 0) FROM inventory l WHERE l.item_id = i.id)");
+        long lastSnapshotId = Math.max(0, rows - (long) snapshotTail * items);
+        jdbc.update("INSERT INTO stock_snapshots (item_id, stock, last_inventory_id, updated_at) " +
+                "SELECT i.id, (SELECT COALESCE(SUM(CASE WHEN l.type = 'T' THEN l.qty ELSE -l.qty END), 0) " +
+                "FROM inventory l WHERE l.item_id = i.id AND l.id <= ?), ?, CURRENT_TIMESTAMP FROM items i " +
+                "WHERE i.id BETWEEN ? AND ?", lastSnapshotId, lastSnapshotId, firstItemId, firstItemId + items - 1);
+    }
+}
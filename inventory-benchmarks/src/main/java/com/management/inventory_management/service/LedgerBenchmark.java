@@ -0,0 +1,51 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.ItemRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+// Stock of one item with a growing ledger: the full ledger SUM against snapshot plus tail
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LedgerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int ledgerRows;
+
+    private ConfigurableApplicationContext context;
+    private ItemRepository itemRepository;
+    private StockService stockService;
+    private long itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start("ledger-" + ledgerRows);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        itemId = BenchmarkDatabase.seedItem(jdbc, "ledger-item", 0);
+        BenchmarkDatabase.seedLedger(jdbc, itemId, 1, ledgerRows, 1000);
+        itemRepository = context.getBean(ItemRepository.class);
+        stockService = context.getBean(StockService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer calculateItemStock() {
+        return itemRepository.calculateItemStock(itemId);
+    }
+
+    @Benchmark
+    public Integer snapshotStock() {
+        return stockService.getCurrentStock(itemId);
+    }
+}
@@ -0,0 +1,92 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.model.Inventory;
+import com.management.inventory_management.model.InventoryType;
+import com.management.inventory_management.model.Item;
+import com.management.inventory_management.model.Order;
+import com.management.inventory_management.model.OrderLine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The entity to DTO mappers on a page worth of rows, no database involved
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private final ItemService itemService = new ItemService();
+    private final InventoryService inventoryService = new InventoryService();
+    private final OrderService orderService = new OrderService();
+
+    private List<Item> items;
+    private List<Inventory> inventories;
+    private List<Order> orders;
+    private List<List<OrderLine>> orderLines;
+
+    @Setup
+    public void setUp() {
+        items = new ArrayList<>(rows);
+        inventories = new ArrayList<>(rows);
+        orders = new ArrayList<>(rows);
+        orderLines = new ArrayList<>(rows);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int x = 1; x <= rows; x++) {
+            Item item = new Item((long) x, "item-" + x, 1000.0, x % 50);
+            items.add(item);
+
+            Inventory inventory = new Inventory();
+            inventory.setId((long) x);
+            inventory.setItem(item);
+            inventory.setQty(1 + x % 7);
+            inventory.setType(x % 3 == 0 ? InventoryType.W : InventoryType.T);
+            inventory.setTransactionDate(start.plusSeconds(x));
+            inventories.add(inventory);
+
+            Order order = new Order();
+            order.setOrderNo((long) x);
+            order.setTotalPrice(1000.0 * (1 + x % 7));
+            orders.add(order);
+
+            OrderLine line = new OrderLine();
+            line.setOrder(order);
+            line.setLineNo(1);
+            line.setItem(item);
+            line.setQty(1 + x % 7);
+            line.setPrice(1000.0);
+            line.setTotalPrice(order.getTotalPrice());
+            orderLines.add(List.of(line));
+        }
+    }
+
+    @Benchmark
+    public void itemToDTO(Blackhole blackhole) {
+        for (Item item : items) {
+            blackhole.consume(itemService.convertToDTO(item));
+        }
+    }
+
+    @Benchmark
+    public void inventoryToDTO(Blackhole blackhole) {
+        for (Inventory inventory : inventories) {
+            blackhole.consume(inventoryService.convertToDTO(inventory));
+        }
+    }
+
+    @Benchmark
+    public void orderToDTO(Blackhole blackhole) {
+        for (int i = 0; i < orders.size(); i++) {
+            blackhole.consume(orderService.convertToDTO(orders.get(i), orderLines.get(i)));
+        }
+    }
+}
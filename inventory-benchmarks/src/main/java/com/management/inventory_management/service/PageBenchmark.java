@@ -0,0 +1,74 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+import com.management.inventory_management.dto.InventoryDTO;
+import com.management.inventory_management.dto.ItemDTO;
+import com.management.inventory_management.dto.PageResponseDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// PageResponseDTO assembly through the list endpoints' service methods, including their queries,
+// at shallow and deep pages, and the keyset page at the same depth for comparison
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PageBenchmark {
+
+    private static final int ITEMS = 100_000;
+    private static final int LEDGER_ROWS = 1_000_000;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"0", "100", "5000"})
+    private int pageNo;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private InventoryService inventoryService;
+    private String ledgerCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start("pages");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Integer items = jdbc.queryForObject("SELECT COUNT(*) FROM items", Integer.class);
+        if (items == null || items < ITEMS) {
+            jdbc.update("INSERT INTO items (id, name, price, current_stock) " +
+                    "SELECT X, CONCAT('item-', X), 1000.0, 0 FROM SYSTEM_RANGE(1, ?)", ITEMS);
+        }
+        BenchmarkDatabase.seedLedger(jdbc, 1, ITEMS, LEDGER_ROWS, 5);
+        itemService = context.getBean(ItemService.class);
+        inventoryService = context.getBean(InventoryService.class);
+
+        // Row x is dated x seconds after the seed start, so the last row before page pageNo is row pageNo * size
+        long lastRow = (long) pageNo * PAGE_SIZE;
+        ledgerCursor = lastRow == 0 ? null
+                : PageCursor.encode(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(lastRow), lastRow);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResponseDTO<ItemDTO> itemPage() {
+        return itemService.getAllItems(pageNo, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public PageResponseDTO<InventoryDTO> inventoryPage() {
+        return inventoryService.getAllInventory(pageNo, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPageResponseDTO<InventoryDTO> inventoryCursorPage() {
+        return inventoryService.getInventoryAfter(ledgerCursor, PAGE_SIZE, false);
+    }
+}
@@ -0,0 +1,138 @@
+package com.management.inventory_management.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// StockIndex against the ConcurrentHashMap<Long, AtomicInteger> the stock engine used before, for
+// random lookups and CAS withdrawals over all items. Setup prints the heap each one retains; add
+// "-prof gc" to jmh.args for the allocation rate.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StockIndexBenchmark {
+
+    @Param({"1000000", "5000000"})
+    private int items;
+
+    @Param({"boxed", "heap", "off-heap"})
+    private String storage;
+
+    private Counters counters;
+
+    private long[] probes;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        counters = switch (storage) {
+            case "boxed" -> new BoxedCounters();
+            case "heap" -> new IndexCounters(new StockIndex(items, false));
+            default -> new IndexCounters(new StockIndex(items, true));
+        };
+        for (long id = 1; id <= items; id++) {
+            counters.load(id, 1_000_000);
+        }
+        System.out.printf("%n%s, %d items: %d MB heap retained%n", storage, items, (usedHeap() - before) >> 20);
+
+        SplittableRandom random = new SplittableRandom(42);
+        probes = new long[1 << 16];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = 1 + random.nextInt(items);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int get(Cursor cursor) {
+        return counters.get(probes[cursor.next++ & (probes.length - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean withdraw(Cursor cursor) {
+        return counters.tryWithdraw(probes[cursor.next++ & (probes.length - 1)], 1);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private interface Counters {
+
+        void load(long itemId, int stock);
+
+        int get(long itemId);
+
+        boolean tryWithdraw(long itemId, int quantity);
+    }
+
+    private static final class BoxedCounters implements Counters {
+
+        private final Map<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+        @Override
+        public void load(long itemId, int stock) {
+            counters.putIfAbsent(itemId, new AtomicInteger(stock));
+        }
+
+        @Override
+        public int get(long itemId) {
+            return counters.get(itemId).get();
+        }
+
+        @Override
+        public boolean tryWithdraw(long itemId, int quantity) {
+            AtomicInteger counter = counters.get(itemId);
+            int current;
+            do {
+                current = counter.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!counter.compareAndSet(current, current - quantity));
+            return true;
+        }
+    }
+
+    private record IndexCounters(StockIndex index) implements Counters {
+
+        @Override
+        public void load(long itemId, int stock) {
+            index.putIfAbsent(itemId, stock);
+        }
+
+        @Override
+        public int get(long itemId) {
+            return index.get(itemId);
+        }
+
+        @Override
+        public boolean tryWithdraw(long itemId, int quantity) {
+            int current;
+            do {
+                current = index.get(itemId);
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!index.compareAndSet(itemId, current, current - quantity));
+            return true;
+        }
+    }
+}
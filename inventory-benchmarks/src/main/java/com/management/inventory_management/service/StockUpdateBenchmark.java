@@ -0,0 +1,79 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.InventoryDTO;
+import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.model.InventoryType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The stock changes of POST /api/inventory and POST /api/orders on a single hot item from 8 threads,
+// with and without group commit. Without it both go through StockService.updateStock in the
+// caller's transaction, with it the worker commits the stock change together with the new rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StockUpdateBenchmark {
+
+    @Param({"false", "true"})
+    private boolean groupCommit;
+
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+    private OrderService orderService;
+    private long itemId;
+    // Orders stay in the reused database, so numbering continues after the last run
+    private AtomicLong nextOrderNo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start("stock-update", "inventory.group-commit.enabled=" + groupCommit);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        itemId = BenchmarkDatabase.seedItem(jdbc, "hot-item", 0);
+        // Enough stock that withdrawals never run out during a run
+        jdbc.update("UPDATE items SET current_stock = ? WHERE id = ?", 1_000_000_000, itemId);
+        nextOrderNo = new AtomicLong(jdbc.queryForObject("SELECT COALESCE(MAX(order_no), 0) + 1 FROM orders", Long.class));
+        inventoryService = context.getBean(InventoryService.class);
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public InventoryDTO addition() {
+        return inventoryService.createInventory(inventory(InventoryType.T));
+    }
+
+    @Benchmark
+    public InventoryDTO withdrawal() {
+        return inventoryService.createInventory(inventory(InventoryType.W));
+    }
+
+    @Benchmark
+    public OrderDTO order() {
+        OrderDTO order = new OrderDTO();
+        order.setOrderNo(nextOrderNo.getAndIncrement());
+        order.setItemId(itemId);
+        order.setQty(1);
+        order.setPrice(1000.0);
+        return orderService.createOrder(order);
+    }
+
+    private InventoryDTO inventory(InventoryType type) {
+        InventoryDTO dto = new InventoryDTO();
+        dto.setItemId(itemId);
+        dto.setQty(1);
+        dto.setType(type);
+        return dto;
+    }
+}
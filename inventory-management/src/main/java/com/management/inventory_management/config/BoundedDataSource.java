@@ -0,0 +1,131 @@
+package com.management.inventory_management.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lets at most as many callers hold a connection as the pool has, handing permits out in arrival
+// order. With a virtual thread per request every request can ask for a connection at the same
+// time; they park here, and beyond maxWaiting queued callers the next one is turned away at once
+// instead of waiting out the pool's connection timeout. A permit is returned when its connection
+// is closed.
+public class BoundedDataSource extends DelegatingDataSource implements MeterBinder {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long timeoutMs;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private Counter rejected;
+
+    public BoundedDataSource(DataSource target, String name, int maxConnections, int maxWaiting, long timeoutMs) {
+        super(target);
+        this.name = name;
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxWaiting = maxWaiting;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return release(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return release(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.datasource.guard.waiting", this, BoundedDataSource::waiting)
+                .description("Callers waiting for a database connection permit")
+                .tag("pool", name)
+                .register(registry);
+        rejected = Counter.builder("inventory.datasource.guard.rejected")
+                .description("Callers turned away because too many were already waiting for a connection")
+                .tag("pool", name)
+                .register(registry);
+    }
+
+    private void acquire() throws SQLException {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            if (rejected != null) {
+                rejected.increment();
+            }
+            throw new SQLTransientConnectionException("Terlalu banyak permintaan menunggu koneksi database " + name);
+        }
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Koneksi database " + name + " tidak tersedia dalam " + timeoutMs + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Menunggu koneksi database " + name + " terputus", ex);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    // Gives the permit back on the first close of the connection, later closes do nothing
+    private Connection release(Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    if (method.getName().equals("close")) {
+                        if (closed.compareAndSet(false, true)) {
+                            try {
+                                connection.close();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+}
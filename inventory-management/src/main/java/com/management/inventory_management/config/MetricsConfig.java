@@ -0,0 +1,37 @@
+package com.management.inventory_management.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Makes @Timed work on service methods
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    // Hibernate passes every SQL statement it prepares through the counter
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    // Statement and entity load counts, opt in: Hibernate updates its statistics on every statement
+    @Bean
+    @ConditionalOnProperty(name = "inventory.metrics.hibernate-statistics.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer hibernateStatisticsCustomizer() {
+        return properties -> properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+    }
+}
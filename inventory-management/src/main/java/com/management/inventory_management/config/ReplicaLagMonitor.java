@@ -0,0 +1,61 @@
+package com.management.inventory_management.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+// Measures replication lag with the replica_heartbeat row: every check stamps the primary's copy
+// and reads the replica's. The replica usually still has the previous stamp, so the measured lag
+// includes up to one check interval and the tolerance should be larger than the interval.
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+
+    // Unknown until the first successful check, so reads start out on the primary
+    private volatile long lagMs = Long.MAX_VALUE;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            primary.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", now);
+            Long beat = replica.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+            lagMs = beat == null ? Long.MAX_VALUE : Math.max(0, now - beat);
+        } catch (DataAccessException ex) {
+            lagMs = Long.MAX_VALUE;
+            log.warn("Gagal memeriksa lag replika: {}", ex.getMessage());
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return lagMs <= maxLagMs;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.replica.lag", this,
+                        monitor -> monitor.lagMs == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : monitor.lagMs)
+                .description("Replication lag measured through the heartbeat row")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+}
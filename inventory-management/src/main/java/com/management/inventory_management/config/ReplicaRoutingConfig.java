@@ -0,0 +1,81 @@
+package com.management.inventory_management.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// With inventory.replica.enabled=true read-only transactions are served by the replica in
+// inventory.replica.datasource.*, everything else by the primary in spring.datasource.*.
+// Without it Spring Boot's single auto-configured data source is used.
+@Configuration
+@ConditionalOnProperty(name = "inventory.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Value("${inventory.replica.datasource.url}")
+    private String replicaUrl;
+
+    @Value("${inventory.replica.datasource.username:}")
+    private String replicaUsername;
+
+    @Value("${inventory.replica.datasource.password:}")
+    private String replicaPassword;
+
+    @Value("${inventory.replica.pool-size:10}")
+    private int replicaPoolSize = 10;
+
+    @Value("${inventory.replica.max-lag-ms:5000}")
+    private long maxLagMs = 5000;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(replicaUrl);
+        dataSource.setUsername(replicaUsername);
+        dataSource.setPassword(replicaPassword);
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(replicaPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                               @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, maxLagMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaLagMonitor);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReplicaPinFilter replicaPinFilter() {
+        return new ReplicaPinFilter();
+    }
+}
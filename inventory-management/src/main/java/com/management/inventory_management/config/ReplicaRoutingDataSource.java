@@ -0,0 +1,43 @@
+package com.management.inventory_management.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Picks the replica for read-only transactions while it is within the lag tolerance, and the
+// primary for everything else. Must sit behind a LazyConnectionDataSourceProxy: the transaction
+// manager opens the connection before the read-only flag of the transaction is published.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    // Read your writes: once the thread ran a read-write transaction, its later reads in the same
+    // request go to the primary as well. Cleared per request by ReplicaPinFilter.
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    public static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                PINNED_TO_PRIMARY.set(true);
+            }
+            return Route.PRIMARY;
+        }
+        if (PINNED_TO_PRIMARY.get() || !lagMonitor.isReplicaUsable()) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+}
@@ -0,0 +1,39 @@
+package com.management.inventory_management.config;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+import javax.sql.DataSource;
+
+// Each shard is a Hibernate tenant, so a session is tied to the shard that was current when it
+// opened. Hibernate also keeps the pooled id blocks of inventory_seq per tenant, which keeps every
+// ledger id inside the id range of the shard it is written to.
+public class ShardConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String>
+        implements CurrentTenantIdentifierResolver<String> {
+
+    private final ShardRoutingDataSource shards;
+
+    public ShardConnectionProvider(ShardRoutingDataSource shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return shards.shard(0);
+    }
+
+    @Override
+    protected DataSource selectDataSource(String tenantIdentifier) {
+        return shards.shard(Integer.parseInt(tenantIdentifier));
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return Integer.toString(ShardContext.current());
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.management.inventory_management.config;
+
+import java.util.function.Supplier;
+
+// The shard the current thread works on. Read by ShardTenantResolver when Hibernate opens a
+// session and by ShardRoutingDataSource for plain JDBC access; unbound means shard 0.
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static boolean isBound() {
+        return CURRENT.get() != null;
+    }
+
+    // Binds the thread to shard and returns the previous binding for restore
+    public static Integer bind(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    public static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = bind(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+}
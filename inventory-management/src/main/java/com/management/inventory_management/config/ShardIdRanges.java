@@ -0,0 +1,61 @@
+package com.management.inventory_management.config;
+
+import com.management.inventory_management.service.ShardRouter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Moves the item and order ticket identities and inventory_seq of a shard into the shard's id range,
+// and refuses to start when rows outside that range are stored, because their shard could not be derived.
+final class ShardIdRanges {
+
+    // allocationSize of inventory_seq, see Inventory
+    private static final long SEQUENCE_INCREMENT = 50;
+
+    private ShardIdRanges() {
+    }
+
+    static void align(DataSource dataSource, int shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long start = shard * ShardRouter.ID_RANGE;
+        long end = start + ShardRouter.ID_RANGE;
+        for (String table : List.of("items", "inventory", "order_tickets")) {
+            Long outside = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + table + " WHERE id < ? OR id >= ?", Long.class, start, end);
+            if (outside != null && outside > 0) {
+                throw new IllegalStateException("Shard " + shard + " berisi " + outside + " baris " + table
+                        + " di luar rentang id [" + start + ", " + end + ")");
+            }
+        }
+        if (shard == 0) {
+            return;
+        }
+
+        boolean h2 = "H2".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        for (String table : List.of("items", "order_tickets")) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (maxId == null) {
+                // Only deleted rows can have used the range so far, and those left nothing behind
+                jdbcTemplate.execute(h2
+                        ? "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (start + 1)
+                        : "ALTER TABLE " + table + " AUTO_INCREMENT = " + (start + 1));
+            }
+        }
+
+        // The pooled optimizer treats the stored value as the top of a block of SEQUENCE_INCREMENT ids
+        long firstSequenceValue = start + SEQUENCE_INCREMENT;
+        if (h2) {
+            Long baseValue = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'INVENTORY_SEQ'", Long.class);
+            if (baseValue != null && baseValue < firstSequenceValue) {
+                jdbcTemplate.execute("ALTER SEQUENCE inventory_seq RESTART WITH " + firstSequenceValue);
+            }
+        } else {
+            jdbcTemplate.update("UPDATE inventory_seq SET next_val = ? WHERE next_val < ?",
+                    firstSequenceValue, firstSequenceValue);
+        }
+    }
+}
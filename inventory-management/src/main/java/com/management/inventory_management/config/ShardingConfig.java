@@ -0,0 +1,106 @@
+package com.management.inventory_management.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// With inventory.sharding.enabled=true items, their ledger rows and their orders are spread over
+// the databases in inventory.sharding.urls, shard 0 first. Which shard a call runs on is decided
+// by ShardRouter and ShardRoutingAspect in the service layer.
+@Configuration
+@ConditionalOnProperty(name = "inventory.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Value("${inventory.sharding.urls}")
+    private List<String> urls;
+
+    @Value("${inventory.sharding.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${inventory.sharding.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${inventory.sharding.pool-size:10}")
+    private int poolSize = 10;
+
+    @Value("${inventory.replica.enabled:false}")
+    private boolean replicaEnabled;
+
+    @Value("${inventory.stock-engine.enabled:false}")
+    private boolean stockEngineEnabled;
+
+    @Value("${inventory.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    @Value("${inventory.stock-projection.enabled:false}")
+    private boolean stockProjectionEnabled;
+
+    @Value("${spring.jpa.open-in-view:true}")
+    private boolean openInView;
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(MeterRegistry meterRegistry) {
+        // These keep state for or write to a single database
+        if (replicaEnabled || stockEngineEnabled || groupCommitEnabled || stockProjectionEnabled) {
+            throw new IllegalStateException("inventory.sharding tidak dapat digabung dengan inventory.replica, "
+                    + "inventory.stock-engine, inventory.group-commit atau inventory.stock-projection");
+        }
+        // A session opened for the whole request takes its shard before any service call binds one,
+        // and every transaction of the request would then reuse it on shard 0
+        if (openInView) {
+            throw new IllegalStateException("inventory.sharding membutuhkan spring.jpa.open-in-view=false");
+        }
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(urls.get(shard).trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMetricRegistry(meterRegistry);
+            shards.add(dataSource);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ShardConnectionProvider shardConnectionProvider(ShardRoutingDataSource dataSource) {
+        return new ShardConnectionProvider(dataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardTenancyCustomizer(ShardConnectionProvider shardConnectionProvider) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, shardConnectionProvider);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, shardConnectionProvider);
+        };
+    }
+
+    // Spring Boot migrates only the default shard; every shard gets the same migrations, then its id range
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource dataSource) {
+        return flyway -> {
+            for (int shard = 0; shard < dataSource.shardCount(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource.shard(shard))
+                        .load()
+                        .migrate();
+                ShardIdRanges.align(dataSource.shard(shard), shard);
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.management.inventory_management.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL statements Hibernate prepares on the current thread. Statements sent through
+// a plain JdbcTemplate are not seen.
+public class StatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    public void reset() {
+        count.get()[0] = 0;
+    }
+
+    public int count() {
+        return count.get()[0];
+    }
+}
@@ -0,0 +1,47 @@
+package com.management.inventory_management.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Records how many SQL statements each request issued, per endpoint, so N+1 queries show up
+// in the metrics instead of only as latency
+@Component
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        statementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Requests that matched no handler would only add noise
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (uri != null) {
+                DistributionSummary.builder("inventory.request.statements")
+                        .description("SQL statements prepared by Hibernate per request")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri.toString())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(statementCounter.count());
+            }
+        }
+    }
+}
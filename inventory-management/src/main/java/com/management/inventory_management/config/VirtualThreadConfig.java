@@ -0,0 +1,36 @@
+package com.management.inventory_management.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// With spring.threads.virtual.enabled=true Spring Boot runs Tomcat requests, and with them the
+// service layer, on virtual threads, and the connection pools become the bound on concurrent
+// database work. Every Hikari pool bean is put behind a BoundedDataSource with one permit per
+// pooled connection. The build targets Java 17, the mode needs a Java 21 runtime.
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionGuard(Environment environment) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("spring.threads.virtual.enabled membutuhkan Java 21 atau lebih baru, "
+                    + "berjalan di Java " + Runtime.version().feature());
+        }
+        int maxWaiting = environment.getProperty("inventory.virtual-threads.max-waiting", Integer.class, 1000);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    return new BoundedDataSource(pool, beanName, pool.getMaximumPoolSize(), maxWaiting,
+                            pool.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
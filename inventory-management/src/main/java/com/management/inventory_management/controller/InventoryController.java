@@ -1,12 +1,24 @@
 package com.management.inventory_management.controller;
 
+import com.management.inventory_management.dto.ArchiveReportDTO;
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+import com.management.inventory_management.dto.InventoryBatchResponseDTO;
 import com.management.inventory_management.dto.InventoryDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
+import com.management.inventory_management.service.DataFormat;
+import com.management.inventory_management.service.InventoryArchiver;
 import com.management.inventory_management.service.InventoryService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
@@ -14,6 +26,15 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private InventoryArchiver inventoryArchiver;
+
+    // Moves rows older than inventory.archive.horizon-months into the archive table
+    @PostMapping("/archive")
+    public ResponseEntity<ArchiveReportDTO> archiveLedger() {
+        return ResponseEntity.ok(inventoryArchiver.archive());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<InventoryDTO> getInventory(@PathVariable Long id) {
         return ResponseEntity.ok(inventoryService.getInventory(id));
@@ -26,11 +47,40 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getAllInventory(pageNo, pageSize));
     }
 
+    // Cursor based paging, cheaper than pageNo for deep pages
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponseDTO<InventoryDTO>> getInventoryAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(inventoryService.getInventoryAfter(cursor, pageSize, includeTotal));
+    }
+
+    // Full ledger extract as NDJSON or CSV, streamed instead of paged
+    @GetMapping("/export")
+    public void exportInventory(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) throws IOException {
+        DataFormat dataFormat = DataFormat.fromValue(format);
+        response.setContentType(dataFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=inventory." + dataFormat.name().toLowerCase());
+        inventoryService.exportInventory(itemId, from, to, dataFormat, response.getOutputStream());
+    }
+
     @PostMapping
     public ResponseEntity<InventoryDTO> createInventory(@RequestBody InventoryDTO inventoryDTO) {
         return ResponseEntity.ok(inventoryService.createInventory(inventoryDTO));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<InventoryBatchResponseDTO> createInventoryBatch(@RequestBody List<InventoryDTO> inventoryDTOs) {
+        return ResponseEntity.ok(inventoryService.createInventoryBatch(inventoryDTOs));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<InventoryDTO> updateInventory(
             @PathVariable Long id,
@@ -1,8 +1,13 @@
 package com.management.inventory_management.controller;
 
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+import com.management.inventory_management.dto.ItemCacheStatsDTO;
 import com.management.inventory_management.dto.ItemDTO;
+import com.management.inventory_management.dto.ItemStockDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
+import com.management.inventory_management.dto.ReconciliationReportDTO;
 import com.management.inventory_management.service.ItemService;
+import com.management.inventory_management.service.StockReconciliationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,11 +21,38 @@ public class ItemController {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private StockReconciliationService stockReconciliationService;
+
     @PostMapping
     public ResponseEntity<ItemDTO> createItem(@RequestBody ItemDTO itemDTO) {
         return ResponseEntity.ok(itemService.createItem(itemDTO));
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ItemCacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(itemService.getCacheStats());
+    }
+
+    // Compares current_stock with the ledger for every item, repair=true also fixes the drifted ones
+    @PostMapping("/reconcile")
+    public ResponseEntity<ReconciliationReportDTO> reconcileStock(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(stockReconciliationService.reconcile(repair));
+    }
+
+    // Stock of many items in one call, e.g. ?ids=1,2,3 for a cart
+    @GetMapping("/stock")
+    public ResponseEntity<List<ItemStockDTO>> getStock(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(itemService.getStock(ids));
+    }
+
+    // Same as GET /stock with the ids as a JSON array, for id lists too long for a URL
+    @PostMapping("/stock")
+    public ResponseEntity<List<ItemStockDTO>> getStockForIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(itemService.getStock(ids));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ItemDTO> getItem(@PathVariable Long id) {
         return ResponseEntity.ok(itemService.getItem(id));
@@ -33,6 +65,15 @@ public class ItemController {
         return ResponseEntity.ok(itemService.getAllItems(pageNo, pageSize));
     }
 
+    // Cursor based paging, cheaper than pageNo for deep pages
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponseDTO<ItemDTO>> getItemsAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(itemService.getItemsAfter(cursor, pageSize, includeTotal));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ItemDTO> updateItem(
             @PathVariable Long id,
@@ -1,12 +1,22 @@
 package com.management.inventory_management.controller;
 
+import com.management.inventory_management.dto.CursorPageResponseDTO;
 import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.dto.OrderTicketDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
+import com.management.inventory_management.service.DataFormat;
+import com.management.inventory_management.service.OrderImportService;
+import com.management.inventory_management.service.OrderQueueService;
 import com.management.inventory_management.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
+
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
@@ -14,6 +24,13 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderImportService orderImportService;
+
+    // Only present when inventory.order-queue.enabled=true
+    @Autowired(required = false)
+    private OrderQueueService orderQueueService;
+
     // Get single order
     @GetMapping("/{orderNo}")
     public ResponseEntity<OrderDTO> getOrder(@PathVariable Long orderNo) {
@@ -28,12 +45,35 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders(pageNo, pageSize));
     }
 
+    // Cursor based paging, cheaper than pageNo for deep pages
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponseDTO<OrderDTO>> getOrdersAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(orderService.getOrdersAfter(cursor, pageSize, includeTotal));
+    }
+
     // Create new order
     @PostMapping
     public ResponseEntity<OrderDTO> createOrder(@RequestBody OrderDTO orderDTO) {
         return ResponseEntity.ok(orderService.createOrder(orderDTO));
     }
 
+    // Accept the order for background processing, the ticket tells how it went
+    @PostMapping(params = "async=true")
+    public ResponseEntity<OrderTicketDTO> enqueueOrder(@RequestBody OrderDTO orderDTO) {
+        OrderTicketDTO ticket = orderQueue().enqueue(orderDTO);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/tickets/" + ticket.getTicketId()))
+                .body(ticket);
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<OrderTicketDTO> getTicket(@PathVariable Long ticketId) {
+        return ResponseEntity.ok(orderQueue().getTicket(ticketId));
+    }
+
     // Update order
     @PutMapping("/{orderNo}")
     public ResponseEntity<OrderDTO> updateOrder(
@@ -41,4 +81,21 @@ public class OrderController {
             @RequestBody OrderDTO orderDTO) {
         return ResponseEntity.ok(orderService.updateOrder(orderNo, orderDTO));
     }
+
+    // Bulk import from an NDJSON or CSV upload, streams back one NDJSON result per line
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public void importOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        DataFormat format = request.getContentType().startsWith(DataFormat.CSV.getContentType())
+                ? DataFormat.CSV
+                : DataFormat.NDJSON;
+        response.setContentType(DataFormat.NDJSON.getContentType());
+        orderImportService.importOrders(request.getInputStream(), format, response.getOutputStream());
+    }
+
+    private OrderQueueService orderQueue() {
+        if (orderQueueService == null) {
+            throw new IllegalStateException("Antrean pesanan tidak aktif, aktifkan inventory.order-queue.enabled");
+        }
+        return orderQueueService;
+    }
 }
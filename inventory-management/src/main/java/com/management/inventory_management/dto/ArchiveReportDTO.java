@@ -0,0 +1,14 @@
+package com.management.inventory_management.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ArchiveReportDTO {
+
+    private LocalDateTime cutoff;
+    private long itemsProcessed;
+    private long rowsArchived;
+    private long durationMs;
+}
@@ -0,0 +1,17 @@
+package com.management.inventory_management.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CursorPageResponseDTO<T> {
+
+    private List<T> content;
+    private int pageSize;
+    // Pass back as ?cursor= to get the next page, null on the last page
+    private String nextCursor;
+    private boolean last;
+    // Only filled when includeTotal=true, counting is a full scan
+    private Long totalElements;
+}
@@ -0,0 +1,14 @@
+package com.management.inventory_management.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class InventoryBatchResponseDTO {
+
+    private int processedRows;
+    private int itemsAffected;
+    // Net stock change applied per item id
+    private Map<Long, Integer> stockChanges;
+}
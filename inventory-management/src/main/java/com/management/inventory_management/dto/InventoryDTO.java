@@ -1,11 +1,15 @@
 package com.management.inventory_management.dto;
 
 import com.management.inventory_management.model.InventoryType;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class InventoryDTO {
 
     private Long id;
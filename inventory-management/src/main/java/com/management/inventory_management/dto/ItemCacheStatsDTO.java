@@ -0,0 +1,13 @@
+package com.management.inventory_management.dto;
+
+import lombok.Data;
+
+@Data
+public class ItemCacheStatsDTO {
+
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+}
@@ -0,0 +1,14 @@
+package com.management.inventory_management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemStockDTO {
+
+    private Long itemId;
+    private Integer currentStock;
+}
@@ -1,8 +1,16 @@
 package com.management.inventory_management.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+import java.util.List;
+
+// itemId, qty and price describe a single line order. An order with more items sends lines
+// instead; responses always carry lines and fill the single line fields only for one line.
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class OrderDTO {
 
     private Long orderNo;
@@ -10,4 +18,10 @@ public class OrderDTO {
     private Integer qty;
     private Double price;
     private Double totalPrice;
+    private List<OrderLineDTO> lines;
+
+    public OrderDTO(Long orderNo, Double totalPrice) {
+        this.orderNo = orderNo;
+        this.totalPrice = totalPrice;
+    }
 }
@@ -0,0 +1,25 @@
+package com.management.inventory_management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderImportResultDTO {
+
+    public enum Status {
+        ACCEPTED,
+        DUPLICATE,
+        INSUFFICIENT_STOCK,
+        ITEM_NOT_FOUND,
+        INVALID,
+        FAILED
+    }
+
+    private long line;
+    private Long orderNo;
+    private Status status;
+    private String message;
+}
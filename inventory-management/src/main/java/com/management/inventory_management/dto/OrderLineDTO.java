@@ -0,0 +1,18 @@
+package com.management.inventory_management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineDTO {
+
+    private Long orderNo;
+    private Integer lineNo;
+    private Long itemId;
+    private Integer qty;
+    private Double price;
+    private Double totalPrice;
+}
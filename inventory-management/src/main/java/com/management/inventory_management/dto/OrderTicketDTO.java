@@ -0,0 +1,23 @@
+package com.management.inventory_management.dto;
+
+import com.management.inventory_management.model.OrderTicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outcome of an order sent with async=true. Once DONE the order is read with GET /api/orders/{orderNo},
+// FAILED carries the reason in message.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTicketDTO {
+
+    private Long ticketId;
+    private Long orderNo;
+    private OrderTicketStatus status;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+}
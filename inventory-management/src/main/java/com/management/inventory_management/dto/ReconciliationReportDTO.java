@@ -0,0 +1,17 @@
+package com.management.inventory_management.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ReconciliationReportDTO {
+
+    private int rangesScanned;
+    private long driftedItems;
+    private long repairedItems;
+    private long durationMs;
+    // At most inventory.reconcile.max-reported entries, driftedItems has the full count
+    private List<StockDriftDTO> drifts = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.management.inventory_management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDriftDTO {
+
+    private Long itemId;
+    private Integer currentStock;
+    private Integer expectedStock;
+}
@@ -2,6 +2,8 @@ package com.management.inventory_management.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -11,12 +13,17 @@ import java.time.LocalDateTime;
 @Table(name = "inventory")
 public class Inventory {
 
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_seq")
+    @SequenceGenerator(name = "inventory_seq", sequenceName = "inventory_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    // Reads go through DTO projections, only writes touch the entity and they just need the id
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Item item;
 
     private int qty;
@@ -24,6 +31,10 @@ public class Inventory {
     @Enumerated(EnumType.STRING)
     private InventoryType type;
 
-    @Column(name = "transaction_date")
+    @Column(name = "transaction_date", nullable = false)
     private LocalDateTime transactionDate = LocalDateTime.now();
+
+    // Set on carry-forward rows: how many archived ledger rows this row stands in for
+    @Column(name = "archived_rows")
+    private Integer archivedRows;
 }
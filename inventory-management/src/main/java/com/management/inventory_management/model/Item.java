@@ -1,7 +1,6 @@
 package com.management.inventory_management.model;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -10,7 +9,6 @@ import lombok.Setter;
 @Setter
 @Entity
 @NoArgsConstructor
-@AllArgsConstructor
 @Table(name = "items")
 public class Item {
 
@@ -25,5 +23,22 @@ public class Item {
     @Column(name = "current_stock")
     private Integer currentStock = 0;
 
+    // Stock of a hot item split over stock_buckets, only filled in while hot items are enabled
+    @Transient
+    private Integer bucketStock = 0;
+
+    public Item(Long id, String name, Double price, Integer currentStock) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.currentStock = currentStock;
+    }
+
+    public Integer getTotalStock() {
+        if (bucketStock == null || bucketStock == 0) {
+            return currentStock;
+        }
+        return (currentStock == null ? 0 : currentStock) + bucketStock;
+    }
 
 }
@@ -3,6 +3,7 @@ package com.management.inventory_management.model;
 import jakarta.persistence.*;
 import lombok.Data;
 
+// Order header, the items are in order_lines
 @Data
 @Entity
 @Table(name = "orders")
@@ -11,11 +12,6 @@ public class Order {
     @Id
     private Long orderNo;
 
-    @ManyToOne
-    @JoinColumn(name = "item_id")
-    private Item item;
-    private int qty;
-    private double price;
     @Column(name = "total_price")
     private Double totalPrice;
 }
@@ -0,0 +1,48 @@
+package com.management.inventory_management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+// One item of an order, numbered from 1 within its order
+@Data
+@Entity
+@Table(name = "order_lines")
+@IdClass(OrderLine.Key.class)
+public class OrderLine {
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_no")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Order order;
+
+    @Id
+    @Column(name = "line_no")
+    private int lineNo;
+
+    // Reads go through DTO projections, only writes touch the entity and they just need the id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Item item;
+    private int qty;
+    private double price;
+    @Column(name = "total_price")
+    private Double totalPrice;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long order;
+        private int lineNo;
+    }
+}
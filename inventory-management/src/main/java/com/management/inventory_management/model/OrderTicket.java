@@ -0,0 +1,46 @@
+package com.management.inventory_management.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// An order accepted by POST /api/orders?async=true, see OrderQueueService. The id is the ticket id.
+@Data
+@Entity
+@Table(name = "order_tickets")
+public class OrderTicket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_no")
+    private Long orderNo;
+
+    // Lowest item of the order, orders of one item are processed together
+    @Column(name = "item_id")
+    private Long itemId;
+
+    // The OrderDTO as sent, in JSON
+    @Lob
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    private OrderTicketStatus status;
+
+    private String message;
+
+    private int attempts;
+
+    private String worker;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
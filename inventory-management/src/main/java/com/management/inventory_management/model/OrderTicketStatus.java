@@ -0,0 +1,9 @@
+package com.management.inventory_management.model;
+
+public enum OrderTicketStatus {
+
+    PENDING,    // waiting for a worker
+    PROCESSING, // claimed by a worker
+    DONE,       // order stored
+    FAILED      // order rejected, see the ticket message
+}
@@ -0,0 +1,33 @@
+package com.management.inventory_management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Part of a hot item's stock, see HotItemSplitter. Buckets of an item are numbered from 0.
+@Data
+@Entity
+@Table(name = "stock_buckets")
+@IdClass(StockBucket.Key.class)
+public class StockBucket {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Id
+    private int bucket;
+
+    private int stock;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long itemId;
+        private int bucket;
+    }
+}
@@ -0,0 +1,25 @@
+package com.management.inventory_management.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Checkpoint of an item's ledger stock: stock covers every inventory row with id <= lastInventoryId
+@Data
+@Entity
+@Table(name = "stock_snapshots")
+public class StockSnapshot {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private int stock;
+
+    @Column(name = "last_inventory_id")
+    private long lastInventoryId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -1,7 +1,106 @@
 package com.management.inventory_management.repository;
 
+import com.management.inventory_management.dto.InventoryDTO;
 import com.management.inventory_management.model.Inventory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface InventoryRepository extends JpaRepository<Inventory,Long> {
+
+    // i.item.id reads the FK column, so these never join or load items
+    String SELECT_DTO = "SELECT new com.management.inventory_management.dto.InventoryDTO(" +
+            "i.id, i.item.id, i.qty, i.type, i.transactionDate) FROM Inventory i ";
+
+    @Query(SELECT_DTO + "WHERE i.id = :id")
+    Optional<InventoryDTO> findDtoById(@Param("id") Long id);
+
+    @Query(value = SELECT_DTO + "ORDER BY i.id", countQuery = "SELECT COUNT(i) FROM Inventory i")
+    Page<InventoryDTO> findDtoPage(Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN i.type = 'T' THEN i.qty ELSE -i.qty END), 0) " +
+            "FROM Inventory i WHERE i.item.id = :itemId AND i.id > :afterId AND i.id <= :upToId")
+    Integer sumStockBetween(@Param("itemId") Long itemId,
+                            @Param("afterId") long afterId,
+                            @Param("upToId") long upToId);
+
+    @Query("SELECT MAX(i.id) FROM Inventory i WHERE i.item.id = :itemId")
+    Long findMaxIdByItemId(@Param("itemId") Long itemId);
+
+    @Query("SELECT i.item.id AS itemId, COUNT(i) AS rowCount, MAX(i.id) AS maxId " +
+            "FROM Inventory i WHERE i.id > :afterId GROUP BY i.item.id")
+    List<ItemActivity> findActivitySince(@Param("afterId") long afterId);
+
+    // Net stock change per item over the rows after afterId
+    @Query("SELECT i.item.id AS itemId, SUM(CASE WHEN i.type = 'T' THEN i.qty ELSE -i.qty END) AS stock, " +
+            "MAX(i.id) AS maxId FROM Inventory i WHERE i.id > :afterId GROUP BY i.item.id")
+    List<ItemLedgerStock> sumStockSince(@Param("afterId") long afterId);
+
+    // The delta part of StockSnapshotRepository.calculateCurrentStock for every item at once
+    @Query("SELECT i.item.id AS itemId, SUM(CASE WHEN i.type = 'T' THEN i.qty ELSE -i.qty END) AS stock, " +
+            "MAX(i.id) AS maxId FROM Inventory i WHERE i.id > COALESCE(" +
+            "(SELECT s.lastInventoryId FROM StockSnapshot s WHERE s.itemId = i.item.id), 0) GROUP BY i.item.id")
+    List<ItemLedgerStock> sumStockAfterSnapshots();
+
+    // Keyset pages over the ledger in (transactionDate, id) order
+    @Query(SELECT_DTO + "ORDER BY i.transactionDate, i.id")
+    List<InventoryDTO> findFirstPage(Limit limit);
+
+    @Query(SELECT_DTO +
+            "WHERE i.transactionDate > :date OR (i.transactionDate = :date AND i.id > :id) " +
+            "ORDER BY i.transactionDate, i.id")
+    List<InventoryDTO> findPageAfter(@Param("date") LocalDateTime date, @Param("id") Long id, Limit limit);
+
+    // Archiving: items with ledger rows before the cutoff that are not carry-forward rows yet
+    @Query("SELECT DISTINCT i.item.id FROM Inventory i " +
+            "WHERE i.transactionDate < :cutoff AND i.archivedRows IS NULL AND i.item.id > :afterItemId " +
+            "ORDER BY i.item.id")
+    List<Long> findItemsToArchive(@Param("cutoff") LocalDateTime cutoff,
+                                  @Param("afterItemId") long afterItemId,
+                                  Limit limit);
+
+    @Query(SELECT_DTO + "WHERE i.item.id = :itemId AND i.transactionDate < :cutoff AND i.archivedRows IS NULL " +
+            "ORDER BY i.id")
+    List<InventoryDTO> findRowsToArchive(@Param("itemId") Long itemId,
+                                         @Param("cutoff") LocalDateTime cutoff,
+                                         Limit limit);
+
+    @Query("SELECT i FROM Inventory i WHERE i.item.id = :itemId AND i.archivedRows IS NOT NULL " +
+            "AND i.transactionDate >= :from AND i.transactionDate < :to AND i.id > :afterId AND i.id <= :upToId")
+    Optional<Inventory> findCarryForwardRow(@Param("itemId") Long itemId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("afterId") long afterId,
+                                            @Param("upToId") long upToId);
+
+    @Modifying
+    @Query(value = "INSERT INTO inventory_archive (id, item_id, qty, type, transaction_date, archived_at) " +
+            "SELECT id, item_id, qty, type, transaction_date, :archivedAt FROM inventory WHERE id IN :ids",
+            nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query("DELETE FROM Inventory i WHERE i.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface ItemActivity {
+        Long getItemId();
+        Long getRowCount();
+        Long getMaxId();
+    }
+
+    interface ItemLedgerStock {
+        Long getItemId();
+        Long getStock();
+        Long getMaxId();
+    }
 }
@@ -1,11 +1,16 @@
 package com.management.inventory_management.repository;
 
 import com.management.inventory_management.model.Item;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface ItemRepository extends JpaRepository<Item,Long> {
 
     @Query("SELECT COALESCE(SUM(CASE WHEN i.type = 'T' THEN i.qty ELSE -i.qty END), 0) " +
@@ -15,4 +20,88 @@ public interface ItemRepository extends JpaRepository<Item,Long> {
     @Modifying
     @Query("UPDATE Item i SET i.currentStock = :newStock WHERE i.id = :itemId")
     void updateItemStock(@Param("itemId") Long itemId, @Param("newStock") Integer newStock);
+
+    // Declared query, so unlike findById it runs without the repository's read-only transaction and
+    // stays on the primary when replica routing is on. A value read from a lagging replica would
+    // otherwise sit in the item cache after the eviction that was meant to drop it.
+    @Query("SELECT i FROM Item i WHERE i.id = :id")
+    Optional<Item> findForCache(@Param("id") Long id);
+
+    List<Item> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Stock reads add the buckets of a split item, see HotItemSplitter
+    String TOTAL_STOCK = "COALESCE(i.currentStock, 0) + " +
+            "COALESCE((SELECT SUM(b.stock) FROM StockBucket b WHERE b.itemId = i.id), 0)";
+
+    @Query("SELECT " + TOTAL_STOCK + " FROM Item i WHERE i.id = :itemId")
+    Optional<Integer> findCurrentStockById(@Param("itemId") Long itemId);
+
+    // Locks the item row, as every guarded update of it does
+    @Query(value = "SELECT COALESCE(current_stock, 0) FROM items WHERE id = :itemId FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockCurrentStock(@Param("itemId") Long itemId);
+
+    // Returns 0 when the item does not exist
+    @Modifying
+    @Query("UPDATE Item i SET i.currentStock = COALESCE(i.currentStock, 0) + :qty WHERE i.id = :itemId")
+    int incrementStock(@Param("itemId") Long itemId, @Param("qty") int qty);
+
+    // Check and write in one statement; returns 0 when the item does not exist or has less than qty in stock
+    @Modifying
+    @Query("UPDATE Item i SET i.currentStock = i.currentStock - :qty " +
+            "WHERE i.id = :itemId AND i.currentStock >= :qty")
+    int decrementStockIfAvailable(@Param("itemId") Long itemId, @Param("qty") int qty);
+
+    @Query("SELECT i.id AS id, " + TOTAL_STOCK + " AS currentStock FROM Item i WHERE i.id IN :ids")
+    List<ItemStock> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT i.id AS id, " + TOTAL_STOCK + " AS currentStock FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    List<ItemStock> findStockAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query("SELECT MIN(i.id) FROM Item i")
+    Long findMinId();
+
+    @Query("SELECT MAX(i.id) FROM Item i")
+    Long findMaxId();
+
+    // Items in [fromId, toId] whose stock differs from the ledger sum minus ordered quantities.
+    // Orders write no ledger row, so both tables are aggregated with one GROUP BY each for the range.
+    @Query(value = "SELECT it.id AS id, COALESCE(it.current_stock, 0) + COALESCE(b.stock, 0) AS currentStock, " +
+            "COALESCE(l.stock, 0) - COALESCE(o.ordered, 0) AS expectedStock FROM items it " +
+            "LEFT JOIN (SELECT item_id, SUM(CASE WHEN type = 'T' THEN qty ELSE -qty END) AS stock FROM inventory " +
+            "WHERE item_id BETWEEN :fromId AND :toId GROUP BY item_id) l ON l.item_id = it.id " +
+            "LEFT JOIN (SELECT item_id, SUM(qty) AS ordered FROM order_lines " +
+            "WHERE item_id BETWEEN :fromId AND :toId GROUP BY item_id) o ON o.item_id = it.id " +
+            "LEFT JOIN (SELECT item_id, SUM(stock) AS stock FROM stock_buckets " +
+            "WHERE item_id BETWEEN :fromId AND :toId GROUP BY item_id) b ON b.item_id = it.id " +
+            "WHERE it.id BETWEEN :fromId AND :toId " +
+            "AND COALESCE(it.current_stock, 0) + COALESCE(b.stock, 0) <> COALESCE(l.stock, 0) - COALESCE(o.ordered, 0) " +
+            "ORDER BY it.id",
+            nativeQuery = true)
+    List<StockDrift> findStockDrift(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Recomputes the expected stock inside the UPDATE, so changes committed since the drift was
+    // found are not overwritten with a stale value. Writes the whole stock to the item row, the
+    // caller drops the buckets of a split item.
+    @Modifying
+    @Query(value = "UPDATE items SET current_stock = " +
+            "(SELECT COALESCE(SUM(CASE WHEN l.type = 'T' THEN l.qty ELSE -l.qty END), 0) FROM inventory l " +
+            "WHERE l.item_id = items.id) - " +
+            "(SELECT COALESCE(SUM(o.qty), 0) FROM order_lines o WHERE o.item_id = items.id) " +
+            "WHERE id IN :ids",
+            nativeQuery = true)
+    int repairStock(@Param("ids") Collection<Long> ids);
+
+    interface ItemStock {
+        Long getId();
+        Integer getCurrentStock();
+    }
+
+    interface StockDrift {
+        Long getId();
+        Integer getCurrentStock();
+        Integer getExpectedStock();
+    }
 }
@@ -0,0 +1,24 @@
+package com.management.inventory_management.repository;
+
+import com.management.inventory_management.dto.OrderLineDTO;
+import com.management.inventory_management.model.OrderLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderLineRepository extends JpaRepository<OrderLine, OrderLine.Key> {
+
+    // l.order.orderNo and l.item.id read the FK columns, so this never joins orders or items
+    @Query("SELECT new com.management.inventory_management.dto.OrderLineDTO(" +
+            "l.order.orderNo, l.lineNo, l.item.id, l.qty, l.price, l.totalPrice) FROM OrderLine l " +
+            "WHERE l.order.orderNo IN :orderNos ORDER BY l.order.orderNo, l.lineNo")
+    List<OrderLineDTO> findDtoByOrderNoIn(@Param("orderNos") Collection<Long> orderNos);
+
+    @Modifying
+    @Query("DELETE FROM OrderLine l WHERE l.order.orderNo = :orderNo")
+    int deleteByOrderNo(@Param("orderNo") Long orderNo);
+}
@@ -1,7 +1,33 @@
 package com.management.inventory_management.repository;
 
+import com.management.inventory_management.dto.OrderDTO;
 import com.management.inventory_management.model.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order,Long> {
+
+    // Headers only, OrderLineRepository.findDtoByOrderNoIn adds the lines
+    String SELECT_DTO = "SELECT new com.management.inventory_management.dto.OrderDTO(" +
+            "o.orderNo, o.totalPrice) FROM Order o ";
+
+    @Query(SELECT_DTO + "WHERE o.orderNo = :orderNo")
+    Optional<OrderDTO> findDtoByOrderNo(@Param("orderNo") Long orderNo);
+
+    @Query(value = SELECT_DTO + "ORDER BY o.orderNo", countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderDTO> findDtoPage(Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE o.orderNo > :orderNo ORDER BY o.orderNo")
+    List<OrderDTO> findPageAfter(@Param("orderNo") Long orderNo, Limit limit);
+
+    @Query("SELECT o.orderNo FROM Order o WHERE o.orderNo IN :orderNos")
+    List<Long> findExistingOrderNos(@Param("orderNos") Collection<Long> orderNos);
 }
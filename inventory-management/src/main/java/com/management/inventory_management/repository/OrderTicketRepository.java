@@ -0,0 +1,52 @@
+package com.management.inventory_management.repository;
+
+import com.management.inventory_management.model.OrderTicket;
+import com.management.inventory_management.model.OrderTicketStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderTicketRepository extends JpaRepository<OrderTicket, Long> {
+
+    @Query("SELECT t.id FROM OrderTicket t WHERE t.status = :status ORDER BY t.id")
+    List<Long> findIdsByStatus(@Param("status") OrderTicketStatus status, Limit limit);
+
+    // Only tickets still pending are claimed, so of two workers reading the same ids each ticket goes to one
+    @Modifying
+    @Query("UPDATE OrderTicket t SET t.status = :claimed, t.worker = :worker, t.claimedAt = :now, " +
+            "t.attempts = t.attempts + 1 WHERE t.id IN :ids AND t.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids, @Param("worker") String worker, @Param("now") LocalDateTime now,
+              @Param("pending") OrderTicketStatus pending, @Param("claimed") OrderTicketStatus claimed);
+
+    boolean existsByOrderNoAndStatusIn(Long orderNo, Collection<OrderTicketStatus> statuses);
+
+    List<OrderTicket> findByWorkerAndStatusOrderById(String worker, OrderTicketStatus status);
+
+    // Gives tickets of a worker that stopped mid-batch back to the queue; their orders were not stored
+    @Modifying
+    @Query("UPDATE OrderTicket t SET t.status = :pending, t.worker = NULL " +
+            "WHERE t.status = :claimed AND t.claimedAt < :cutoff")
+    int releaseStale(@Param("cutoff") LocalDateTime cutoff,
+                     @Param("pending") OrderTicketStatus pending, @Param("claimed") OrderTicketStatus claimed);
+
+    // Both only touch a ticket this worker still holds: after releaseStale another worker may have
+    // claimed it again, and a late update must not overwrite that worker's outcome
+    @Modifying
+    @Query("UPDATE OrderTicket t SET t.status = :status, t.message = :message, t.worker = NULL, " +
+            "t.processedAt = :now WHERE t.id = :id AND t.status = :claimed AND t.worker = :worker")
+    int finish(@Param("id") Long id, @Param("worker") String worker, @Param("claimed") OrderTicketStatus claimed,
+               @Param("status") OrderTicketStatus status, @Param("message") String message,
+               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderTicket t SET t.status = :status, t.worker = NULL " +
+            "WHERE t.id = :id AND t.status = :claimed AND t.worker = :worker")
+    int release(@Param("id") Long id, @Param("worker") String worker, @Param("claimed") OrderTicketStatus claimed,
+                @Param("status") OrderTicketStatus status);
+}
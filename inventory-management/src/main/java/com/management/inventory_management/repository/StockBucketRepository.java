@@ -0,0 +1,51 @@
+package com.management.inventory_management.repository;
+
+import com.management.inventory_management.model.StockBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StockBucketRepository extends JpaRepository<StockBucket, StockBucket.Key> {
+
+    // Plain read without locks, the stock of bucket i is at index i
+    @Query("SELECT b.stock FROM StockBucket b WHERE b.itemId = :itemId ORDER BY b.bucket")
+    List<Integer> findStocks(@Param("itemId") Long itemId);
+
+    // Locks the buckets in bucket order
+    @Query(value = "SELECT stock FROM stock_buckets WHERE item_id = :itemId ORDER BY bucket FOR UPDATE", nativeQuery = true)
+    List<Integer> lockStocks(@Param("itemId") Long itemId);
+
+    // Split items among the given ones with the sum of their buckets
+    @Query("SELECT b.itemId AS id, SUM(b.stock) AS currentStock FROM StockBucket b " +
+            "WHERE b.itemId IN :itemIds GROUP BY b.itemId")
+    List<ItemRepository.ItemStock> sumStocks(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("SELECT DISTINCT b.itemId FROM StockBucket b")
+    List<Long> findSplitItemIds();
+
+    // Same guarded decrement as ItemRepository.decrementStockIfAvailable, for one bucket
+    @Modifying
+    @Query("UPDATE StockBucket b SET b.stock = b.stock - :qty " +
+            "WHERE b.itemId = :itemId AND b.bucket = :bucket AND b.stock >= :qty")
+    int decrementIfAvailable(@Param("itemId") Long itemId, @Param("bucket") int bucket, @Param("qty") int qty);
+
+    @Modifying
+    @Query("UPDATE StockBucket b SET b.stock = b.stock + :qty WHERE b.itemId = :itemId AND b.bucket = :bucket")
+    int increment(@Param("itemId") Long itemId, @Param("bucket") int bucket, @Param("qty") int qty);
+
+    @Modifying
+    @Query("UPDATE StockBucket b SET b.stock = :stock WHERE b.itemId = :itemId AND b.bucket = :bucket")
+    int updateStock(@Param("itemId") Long itemId, @Param("bucket") int bucket, @Param("stock") int stock);
+
+    @Modifying
+    @Query(value = "INSERT INTO stock_buckets (item_id, bucket, stock) VALUES (:itemId, :bucket, :stock)", nativeQuery = true)
+    void insert(@Param("itemId") Long itemId, @Param("bucket") int bucket, @Param("stock") int stock);
+
+    @Modifying
+    @Query("DELETE FROM StockBucket b WHERE b.itemId = :itemId")
+    int deleteByItemId(@Param("itemId") Long itemId);
+}
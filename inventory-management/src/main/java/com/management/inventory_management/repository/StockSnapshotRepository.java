@@ -0,0 +1,34 @@
+package com.management.inventory_management.repository;
+
+import com.management.inventory_management.model.StockSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StockSnapshot s WHERE s.itemId = :itemId")
+    Optional<StockSnapshot> findLockedByItemId(@Param("itemId") Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StockSnapshot s WHERE s.itemId IN :itemIds ORDER BY s.itemId")
+    List<StockSnapshot> findLockedByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("SELECT s.itemId AS itemId, s.stock AS stock, s.lastInventoryId AS maxId FROM StockSnapshot s")
+    List<InventoryRepository.ItemLedgerStock> findAllStock();
+
+    // Snapshot stock plus the ledger rows written after it, read in a single statement
+    @Query(value = "SELECT COALESCE((SELECT s.stock FROM stock_snapshots s WHERE s.item_id = :itemId), 0) " +
+            "+ COALESCE((SELECT SUM(CASE WHEN i.type = 'T' THEN i.qty ELSE -i.qty END) FROM inventory i " +
+            "WHERE i.item_id = :itemId AND i.id > COALESCE(" +
+            "(SELECT s.last_inventory_id FROM stock_snapshots s WHERE s.item_id = :itemId), 0)), 0)",
+            nativeQuery = true)
+    Integer calculateCurrentStock(@Param("itemId") Long itemId);
+}
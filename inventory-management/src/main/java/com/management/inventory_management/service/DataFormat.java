@@ -0,0 +1,21 @@
+package com.management.inventory_management.service;
+
+// Line-oriented formats used by the bulk import and export endpoints
+public enum DataFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    DataFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static DataFormat fromValue(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
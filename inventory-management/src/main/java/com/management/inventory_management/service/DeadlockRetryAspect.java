@@ -0,0 +1,39 @@
+package com.management.inventory_management.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Runs a service transaction once more when it lost a deadlock. Two withdrawals spilling over the
+// buckets of the same split item can deadlock, see HotItemSplitter.withdrawSpread, and InnoDB rolls
+// the whole transaction back, so only the outermost call can retry. Runs inside the shard binding
+// and before the transaction starts.
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "inventory.hot-items.enabled", havingValue = "true")
+public class DeadlockRetryAspect {
+
+    @Around("execution(public * com.management.inventory_management.service..*(..)) " +
+            "&& @annotation(org.springframework.transaction.annotation.Transactional)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        try {
+            return joinPoint.proceed();
+        } catch (CannotAcquireLockException | DeadlockLoserDataAccessException ex) {
+            log.info("{} kalah deadlock, diulang sekali: {}", joinPoint.getSignature().toShortString(), ex.getMessage());
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.StockBucketRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Splits the stock of hot items over several stock_buckets rows, so concurrent withdrawals of one
+// item lock different rows instead of queueing on its items row. The stock of an item is always
+// items.current_stock plus the sum of its buckets; a split moves the row's stock into the buckets.
+// Every stock UPDATE of the database mode is timed here. An item with at least min-slow-updates
+// updates slower than slow-update-ms in one check interval is split, a split item with fewer than
+// merge-below-updates updates in an interval is merged back into its row.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.hot-items.enabled", havingValue = "true")
+public class HotItemSplitter implements MeterBinder {
+
+    private static final class Heat {
+        final LongAdder updates = new LongAdder();
+        final LongAdder slowUpdates = new LongAdder();
+    }
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private StockBucketRepository stockBucketRepository;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.hot-items.buckets:8}")
+    private int buckets = 8;
+
+    @Value("${inventory.hot-items.slow-update-ms:5}")
+    private long slowUpdateMs = 5;
+
+    @Value("${inventory.hot-items.min-slow-updates:100}")
+    private long minSlowUpdates = 100;
+
+    @Value("${inventory.hot-items.merge-below-updates:20}")
+    private long mergeBelowUpdates = 20;
+
+    @Value("${inventory.hot-items.max-split:64}")
+    private int maxSplit = 64;
+
+    // Items timed per interval, further items are not tracked until the next interval
+    @Value("${inventory.hot-items.max-tracked:10000}")
+    private int maxTracked = 10_000;
+
+    @Value("${inventory.stock-engine.enabled:false}")
+    private boolean stockEngineEnabled;
+
+    @Value("${inventory.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    private volatile Map<Long, Heat> heat = new ConcurrentHashMap<>();
+
+    // Items known to be split, by this instance or, as of the last check, by another one
+    private final Set<Long> splitItems = ConcurrentHashMap.newKeySet();
+
+    private Counter splits;
+    private Counter merges;
+    private Counter spillovers;
+
+    @PostConstruct
+    void checkMode() {
+        // Those modes write items.current_stock their own way and never reach the buckets
+        if (stockEngineEnabled || groupCommitEnabled) {
+            throw new IllegalStateException("inventory.hot-items tidak dapat digabung dengan "
+                    + "inventory.stock-engine atau inventory.group-commit");
+        }
+        if (buckets < 2) {
+            throw new IllegalStateException("inventory.hot-items.buckets minimal 2");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSplitItems() {
+        Set<Long> found = ConcurrentHashMap.newKeySet();
+        shardRouter.fanOut(stockBucketRepository::findSplitItemIds).forEach(found::addAll);
+        splitItems.retainAll(found);
+        splitItems.addAll(found);
+    }
+
+    public boolean isSplit(Long itemId) {
+        return splitItems.contains(itemId);
+    }
+
+    // Guarded withdrawal in the caller's transaction. A split item withdraws from a random bucket
+    // that had enough stock at a plain read, the slow path spills over to the other buckets.
+    public boolean tryWithdraw(Long itemId, int quantity) {
+        long started = System.nanoTime();
+        try {
+            if (!isSplit(itemId)) {
+                if (itemRepository.decrementStockIfAvailable(itemId, quantity) > 0) {
+                    return true;
+                }
+                // Maybe split by another instance since the last check
+                return stockBucketRepository.findStocks(itemId).isEmpty() ? false : withdrawSpread(itemId, quantity);
+            }
+            List<Integer> stocks = stockBucketRepository.findStocks(itemId);
+            List<Integer> candidates = new ArrayList<>();
+            for (int bucket = 0; bucket < stocks.size(); bucket++) {
+                if (stocks.get(bucket) >= quantity) {
+                    candidates.add(bucket);
+                }
+            }
+            if (!candidates.isEmpty()) {
+                int bucket = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+                if (stockBucketRepository.decrementIfAvailable(itemId, bucket, quantity) > 0) {
+                    return true;
+                }
+            }
+            return withdrawSpread(itemId, quantity);
+        } finally {
+            record(itemId, System.nanoTime() - started);
+        }
+    }
+
+    // Adds to a random bucket of a split item, to the items row otherwise. Returns 0 when the item does not exist.
+    public int add(Long itemId, int quantity) {
+        long started = System.nanoTime();
+        try {
+            if (isSplit(itemId) && stockBucketRepository.increment(itemId,
+                    ThreadLocalRandom.current().nextInt(buckets), quantity) > 0) {
+                return 1;
+            }
+            return itemRepository.incrementStock(itemId, quantity);
+        } finally {
+            record(itemId, System.nanoTime() - started);
+        }
+    }
+
+    // The items row was overwritten with the whole stock and the buckets dropped
+    public void forget(Long itemId) {
+        splitItems.remove(itemId);
+    }
+
+    public void record(Long itemId, long nanos) {
+        Map<Long, Heat> current = heat;
+        Heat itemHeat = current.get(itemId);
+        if (itemHeat == null) {
+            if (current.size() >= maxTracked) {
+                return;
+            }
+            itemHeat = current.computeIfAbsent(itemId, id -> new Heat());
+        }
+        itemHeat.updates.increment();
+        if (nanos >= TimeUnit.MILLISECONDS.toNanos(slowUpdateMs)) {
+            itemHeat.slowUpdates.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.hot-items.check-interval-ms:10000}")
+    public void rebalance() {
+        Map<Long, Heat> interval = heat;
+        heat = new ConcurrentHashMap<>();
+        loadSplitItems();
+
+        for (Long itemId : new ArrayList<>(splitItems)) {
+            Heat itemHeat = interval.get(itemId);
+            if (itemHeat == null || itemHeat.updates.sum() < mergeBelowUpdates) {
+                runLogged("menggabungkan", itemId, () -> merge(itemId));
+            }
+        }
+        interval.forEach((itemId, itemHeat) -> {
+            if (!isSplit(itemId) && splitItems.size() < maxSplit && itemHeat.slowUpdates.sum() >= minSlowUpdates) {
+                runLogged("membagi", itemId, () -> split(itemId));
+            }
+        });
+    }
+
+    // Moves the row's stock into the buckets, spread evenly
+    void split(Long itemId) {
+        boolean done = Boolean.TRUE.equals(shardRouter.onShard(shardRouter.shardOf(itemId), () -> transactionTemplate.execute(status -> {
+            Integer stock = itemRepository.lockCurrentStock(itemId).orElse(null);
+            if (stock == null || stock < 0 || !stockBucketRepository.lockStocks(itemId).isEmpty()) {
+                return false;
+            }
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                stockBucketRepository.insert(itemId, bucket, stock / buckets + (bucket < stock % buckets ? 1 : 0));
+            }
+            itemRepository.updateItemStock(itemId, 0);
+            return true;
+        })));
+        if (done) {
+            splitItems.add(itemId);
+            splits.increment();
+            log.info("Stok item {} dibagi ke {} bucket", itemId, buckets);
+        }
+    }
+
+    // Moves the buckets' stock back into the row and drops the buckets
+    void merge(Long itemId) {
+        shardRouter.onShard(shardRouter.shardOf(itemId), () -> transactionTemplate.execute(status -> {
+            itemRepository.lockCurrentStock(itemId);
+            int stock = stockBucketRepository.lockStocks(itemId).stream().mapToInt(Integer::intValue).sum();
+            stockBucketRepository.deleteByItemId(itemId);
+            itemRepository.incrementStock(itemId, stock);
+            return null;
+        }));
+        splitItems.remove(itemId);
+        itemCache.evictStock(itemId);
+        merges.increment();
+        log.info("Stok item {} digabung kembali", itemId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.stock.hot-items", splitItems, Set::size)
+                .description("Items whose stock is split over buckets")
+                .register(registry);
+        splits = Counter.builder("inventory.stock.hot-items.splits")
+                .description("Items split because their stock updates were slow")
+                .register(registry);
+        merges = Counter.builder("inventory.stock.hot-items.merges")
+                .description("Split items merged back after they cooled down")
+                .register(registry);
+        spillovers = Counter.builder("inventory.stock.hot-items.spillovers")
+                .description("Withdrawals no single bucket could serve")
+                .register(registry);
+    }
+
+    // Locks the items row and then every bucket in bucket order, as split and merge do, and takes
+    // the quantity from the row first and then bucket by bucket. A withdrawal that lost the race for
+    // its random bucket still holds that bucket here, so two spilling withdrawals of the same item
+    // can deadlock; InnoDB rolls one of them back and DeadlockRetryAspect runs its transaction once
+    // more. That only happens once the item is nearly out of stock, where the merge check brings it
+    // back to a single row.
+    private boolean withdrawSpread(Long itemId, int quantity) {
+        spillovers.increment();
+        Integer rowStock = itemRepository.lockCurrentStock(itemId).orElse(null);
+        if (rowStock == null) {
+            return false;
+        }
+        List<Integer> stocks = stockBucketRepository.lockStocks(itemId);
+        if (stocks.isEmpty()) {
+            splitItems.remove(itemId);
+            return itemRepository.decrementStockIfAvailable(itemId, quantity) > 0;
+        }
+        int available = Math.max(rowStock, 0) + stocks.stream().mapToInt(stock -> Math.max(stock, 0)).sum();
+        if (available < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        if (rowStock > 0) {
+            int taken = Math.min(rowStock, remaining);
+            itemRepository.updateItemStock(itemId, rowStock - taken);
+            remaining -= taken;
+        }
+        for (int bucket = 0; bucket < stocks.size() && remaining > 0; bucket++) {
+            int taken = Math.min(Math.max(stocks.get(bucket), 0), remaining);
+            if (taken > 0) {
+                stockBucketRepository.updateStock(itemId, bucket, stocks.get(bucket) - taken);
+                remaining -= taken;
+            }
+        }
+        return true;
+    }
+
+    private void runLogged(String action, Long itemId, Runnable work) {
+        try {
+            work.run();
+        } catch (RuntimeException ex) {
+            log.warn("Gagal {} stok item {}", action, itemId, ex);
+        }
+    }
+}
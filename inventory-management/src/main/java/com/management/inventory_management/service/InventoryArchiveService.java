@@ -0,0 +1,100 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.InventoryDTO;
+import com.management.inventory_management.model.Inventory;
+import com.management.inventory_management.model.InventoryType;
+import com.management.inventory_management.model.StockSnapshot;
+import com.management.inventory_management.repository.InventoryRepository;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Moves old ledger rows of an item into inventory_archive and folds them into one carry-forward
+// row per month. A carry-forward row reuses the id of a row it replaces, and rows on either side
+// of the item's snapshot checkpoint are folded separately, so the full ledger sum and the
+// snapshot plus delta sum both stay exact.
+@Service
+public class InventoryArchiveService {
+
+    private record CarryKey(YearMonth month, boolean coveredBySnapshot) {
+    }
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Autowired(required = false)
+    private StockProjection stockProjection;
+
+    // Archives up to chunkSize rows dated before the cutoff, returns how many were archived
+    @Transactional
+    public int archiveChunk(Long itemId, LocalDateTime cutoff, int chunkSize) {
+        // Holding the snapshot row keeps compaction from moving the checkpoint in the meantime
+        long checkpoint = stockSnapshotRepository.findLockedByItemId(itemId)
+                .map(StockSnapshot::getLastInventoryId)
+                .orElse(0L);
+
+        List<InventoryDTO> rows = inventoryRepository.findRowsToArchive(itemId, cutoff, Limit.of(chunkSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (stockProjection != null) {
+            stockProjection.recordRewrite();
+        }
+        inventoryRepository.copyToArchive(ids(rows), LocalDateTime.now());
+
+        Map<CarryKey, List<InventoryDTO>> groups = rows.stream().collect(Collectors.groupingBy(
+                row -> new CarryKey(YearMonth.from(row.getTransactionDate()), row.getId() <= checkpoint),
+                LinkedHashMap::new, Collectors.toList()));
+        groups.forEach((key, group) -> fold(itemId, key, group, checkpoint));
+        return rows.size();
+    }
+
+    // Rows are in id order, so without an existing carry-forward row the last one is kept and rewritten
+    private void fold(Long itemId, CarryKey key, List<InventoryDTO> rows, long checkpoint) {
+        LocalDateTime monthStart = key.month().atDay(1).atStartOfDay();
+        Optional<Inventory> existing = inventoryRepository.findCarryForwardRow(itemId,
+                monthStart, monthStart.plusMonths(1),
+                key.coveredBySnapshot() ? Long.MIN_VALUE : checkpoint,
+                key.coveredBySnapshot() ? checkpoint : Long.MAX_VALUE);
+
+        List<Long> removed = ids(rows);
+        int net = rows.stream().mapToInt(row -> StockSnapshotService.signedQty(row.getType(), row.getQty())).sum();
+        int archivedRows = rows.size();
+        Inventory carry;
+        if (existing.isPresent()) {
+            carry = existing.get();
+            net += StockSnapshotService.signedQty(carry.getType(), carry.getQty());
+            archivedRows += carry.getArchivedRows();
+        } else {
+            Long keptId = removed.remove(removed.size() - 1);
+            carry = inventoryRepository.findById(keptId)
+                    .orElseThrow(() -> new EntityNotFoundException("Transaksi inventaris tidak ditemukan dengan id: " + keptId));
+        }
+        if (!removed.isEmpty()) {
+            inventoryRepository.deleteByIdIn(removed);
+        }
+
+        carry.setType(net >= 0 ? InventoryType.T : InventoryType.W);
+        carry.setQty(Math.abs(net));
+        carry.setArchivedRows(archivedRows);
+    }
+
+    private static List<Long> ids(List<InventoryDTO> rows) {
+        return rows.stream().map(InventoryDTO::getId).collect(Collectors.toCollection(ArrayList::new));
+    }
+}
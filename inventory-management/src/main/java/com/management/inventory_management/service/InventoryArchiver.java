@@ -0,0 +1,118 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.ArchiveReportDTO;
+import com.management.inventory_management.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Archives ledger rows older than the horizon, item by item in short chunk transactions. Progress
+// lives in the data itself (archived rows are gone, carry-forward rows are marked), so a stopped
+// run simply continues where it left off the next time.
+@Slf4j
+@Component
+public class InventoryArchiver {
+
+    private static final int ITEM_PAGE_SIZE = 1000;
+
+    @Autowired
+    private InventoryArchiveService inventoryArchiveService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Whole months only: rows dated before the first day of (current month - horizon) are archived
+    @Value("${inventory.archive.horizon-months:12}")
+    private int horizonMonths = 12;
+
+    @Value("${inventory.archive.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    // Breathing room for regular traffic between chunks
+    @Value("${inventory.archive.pause-ms:0}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${inventory.archive.cron:-}")
+    public void scheduledArchive() {
+        ArchiveReportDTO report = archive();
+        log.info("Arsip ledger: {} baris dari {} item diarsipkan sebelum {}",
+                report.getRowsArchived(), report.getItemsProcessed(), report.getCutoff());
+    }
+
+    public ArchiveReportDTO archive() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Pengarsipan ledger sedang berjalan");
+        }
+        try {
+            return run();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ArchiveReportDTO run() {
+        long start = System.currentTimeMillis();
+        ArchiveReportDTO report = new ArchiveReportDTO();
+        LocalDateTime cutoff = YearMonth.now().minusMonths(horizonMonths).atDay(1).atStartOfDay();
+        report.setCutoff(cutoff);
+
+        AtomicBoolean interrupted = new AtomicBoolean();
+        shardRouter.forEachShard(shard -> {
+            if (!interrupted.get() && !archiveShard(cutoff, report)) {
+                interrupted.set(true);
+            }
+        });
+
+        report.setDurationMs(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    // Returns false when the run was interrupted
+    private boolean archiveShard(LocalDateTime cutoff, ArchiveReportDTO report) {
+        long afterItemId = 0;
+        List<Long> itemIds;
+        do {
+            itemIds = inventoryRepository.findItemsToArchive(cutoff, afterItemId, Limit.of(ITEM_PAGE_SIZE));
+            for (Long itemId : itemIds) {
+                int archived;
+                do {
+                    archived = inventoryArchiveService.archiveChunk(itemId, cutoff, chunkSize);
+                    report.setRowsArchived(report.getRowsArchived() + archived);
+                    if (!pause()) {
+                        return false;
+                    }
+                } while (archived == chunkSize);
+                report.setItemsProcessed(report.getItemsProcessed() + 1);
+                afterItemId = itemId;
+            }
+        } while (itemIds.size() == ITEM_PAGE_SIZE);
+        return true;
+    }
+
+    // Returns false when the thread was interrupted, the run stops and resumes next time
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,21 +1,49 @@
 package com.management.inventory_management.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+import com.management.inventory_management.dto.InventoryBatchResponseDTO;
 import com.management.inventory_management.dto.InventoryDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
-import com.management.inventory_management.exception.InsufficientStockException;
 import com.management.inventory_management.model.Inventory;
 import com.management.inventory_management.model.InventoryType;
 import com.management.inventory_management.model.Item;
 import com.management.inventory_management.repository.InventoryRepository;
 import com.management.inventory_management.repository.ItemRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 @Service
 public class InventoryService {
@@ -29,21 +57,42 @@ public class InventoryService {
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private StockSnapshotService stockSnapshotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize = 500;
+
+    // Unset: row by row streaming on MySQL, 1000 rows per round trip elsewhere
+    @Value("${inventory.export.fetch-size:#{null}}")
+    private Integer exportFetchSize;
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
     // Get single inventory
-    public InventoryDTO getInventory(Long id) {
-        Inventory inventory = inventoryRepository.findById(id)
+    @Transactional(readOnly = true)
+    public InventoryDTO getInventory(@ShardKey(ShardKey.Kind.INVENTORY) Long id) {
+        return inventoryRepository.findDtoById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory tidak ditemukan dengan id: " + id));
-        return convertToDTO(inventory);
     }
 
     // Get all inventory with pagination
+    @Transactional(readOnly = true)
     public PageResponseDTO<InventoryDTO> getAllInventory(int pageNo, int pageSize) {
-        Page<Inventory> inventoryPage = inventoryRepository.findAll(PageRequest.of(pageNo, pageSize));
+        Page<InventoryDTO> inventoryPage = shardRouter.page(inventoryRepository::findDtoPage, PageRequest.of(pageNo, pageSize),
+                Comparator.comparing(InventoryDTO::getId));
 
         PageResponseDTO<InventoryDTO> response = new PageResponseDTO<>();
-        response.setContent(inventoryPage.getContent().stream()
-                .map(this::convertToDTO)
-                .toList());
+        response.setContent(inventoryPage.getContent());
         response.setPageNo(inventoryPage.getNumber());
         response.setPageSize(inventoryPage.getSize());
         response.setTotalElements(inventoryPage.getTotalElements());
@@ -52,43 +101,202 @@ public class InventoryService {
         return response;
     }
 
+    // Keyset pagination on (transactionDate, id): no OFFSET, and no count(*) unless includeTotal is set
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<InventoryDTO> getInventoryAfter(String cursor, int pageSize, boolean includeTotal) {
+        PageCursor.validatePageSize(pageSize);
+        Limit limit = Limit.of(pageSize + 1);
+        List<InventoryDTO> rows = shardRouter.list(() -> cursor == null
+                        ? inventoryRepository.findFirstPage(limit)
+                        : inventoryRepository.findPageAfter(PageCursor.decodeDate(cursor), PageCursor.decodeDateId(cursor), limit),
+                Comparator.comparing(InventoryDTO::getTransactionDate).thenComparing(InventoryDTO::getId), pageSize + 1);
+        return PageCursor.page(rows, pageSize,
+                row -> PageCursor.encode(row.getTransactionDate(), row.getId()),
+                includeTotal ? shardRouter.count(inventoryRepository::count) : null);
+    }
+
+    // Stream the ledger to out, optionally filtered by item and transaction date [from, to).
+    // Rows are read through a database cursor and written as they arrive, so memory stays flat.
+    // An item's rows are on the shard @ShardKey picked, the whole ledger is written shard by shard.
+    @Transactional(readOnly = true)
+    public void exportInventory(@ShardKey Long itemId, LocalDateTime from, LocalDateTime to,
+                                DataFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == DataFormat.CSV) {
+            writer.write("id,itemId,qty,type,transactionDate\n");
+        }
+        Runnable export = () -> writeRows(itemId, from, to, format, writer);
+        try {
+            if (itemId == null) {
+                shardRouter.forEachShardReadOnly(export);
+            } else {
+                export.run();
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRows(Long itemId, LocalDateTime from, LocalDateTime to, DataFormat format, Writer writer) {
+        try (Stream<InventoryDTO> rows = streamForExport(itemId, from, to)) {
+            Iterator<InventoryDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                InventoryDTO row = iterator.next();
+                if (format == DataFormat.CSV) {
+                    writer.write(row.getId() + "," + row.getItemId() + "," + row.getQty() + ","
+                            + row.getType() + "," + row.getTransactionDate() + "\n");
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Projected straight into DTOs so no entities pile up in the persistence context while streaming.
+    // Only the filters given become predicates, so MySQL can use the item or date index for them.
+    private Stream<InventoryDTO> streamForExport(Long itemId, LocalDateTime from, LocalDateTime to) {
+        List<String> predicates = new ArrayList<>();
+        if (itemId != null) {
+            predicates.add("i.item.id = :itemId");
+        }
+        if (from != null) {
+            predicates.add("i.transactionDate >= :from");
+        }
+        if (to != null) {
+            predicates.add("i.transactionDate < :to");
+        }
+        String where = predicates.isEmpty() ? "" : "WHERE " + String.join(" AND ", predicates) + " ";
+        TypedQuery<InventoryDTO> query = entityManager.createQuery(
+                InventoryRepository.SELECT_DTO + where + "ORDER BY i.id", InventoryDTO.class);
+        // Set on the export statement alone, other queries keep the driver's default fetch
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize());
+        if (itemId != null) {
+            query.setParameter("itemId", itemId);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query.getResultStream();
+    }
+
+    private int exportFetchSize() {
+        if (exportFetchSize == null) {
+            // Connector/J streams row by row only for this fetch size, otherwise it buffers the whole result
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect();
+            exportFetchSize = dialect instanceof MySQLDialect ? Integer.MIN_VALUE : 1000;
+        }
+        return exportFetchSize;
+    }
 
     // Create new inventory transaction
+    @Timed(value = "inventory.inventory.create", histogram = true)
     @Transactional
-    public InventoryDTO createInventory(InventoryDTO dto) {
+    public InventoryDTO createInventory(@ShardKey InventoryDTO dto) {
         validateInventoryInput(dto);
-
-        Item item = itemRepository.findById(dto.getItemId())
-                .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan dengan id: " + dto.getItemId()));
-
-        // Check stock for Withdrawal
-        if (dto.getType() == InventoryType.W) {
-            Integer currentStock = stockService.getCurrentStock(item.getId());
-            if (currentStock < dto.getQty()) {
-                throw new InsufficientStockException(
-                        String.format("Stok tidak mencukupi untuk penarikan. Stok saat ini: %d, Diminta: %d",
-                                currentStock, dto.getQty())
-                );
-            }
+        if (stockService.isGroupCommit()) {
+            return createInventoryGrouped(dto);
         }
 
-        // Update stock
+        // Update stock, withdrawals are checked by the guarded decrement. This also fails with
+        // EntityNotFoundException for an unknown item, so the item row itself is never loaded.
         boolean isAddition = dto.getType() == InventoryType.T;
-        stockService.updateStock(item.getId(), dto.getQty(), isAddition);
+        stockService.updateStock(dto.getItemId(), dto.getQty(), isAddition);
 
         // Create inventory record
         Inventory inventory = new Inventory();
-        inventory.setItem(item);
+        inventory.setItem(entityManager.getReference(Item.class, dto.getItemId()));
         inventory.setQty(dto.getQty());
         inventory.setType(dto.getType());
         inventory.setTransactionDate(LocalDateTime.now());
         inventory = inventoryRepository.save(inventory);
+        stockSnapshotService.recordLedgerChange(dto.getItemId(), inventory.getId(),
+                StockSnapshotService.signedQty(inventory.getType(), inventory.getQty()));
         return convertToDTO(inventory);
     }
 
+    // The group commit worker writes the row together with its stock change
+    private InventoryDTO createInventoryGrouped(InventoryDTO dto) {
+        if (dto.getItemId() == null) {
+            throw new IllegalArgumentException("Item harus ditentukan");
+        }
+        LocalDateTime transactionDate = LocalDateTime.now();
+        long id = stockService.insertLedgerRow(dto.getItemId(), dto.getType(), dto.getQty(), transactionDate);
+        return new InventoryDTO(id, dto.getItemId(), dto.getQty(), dto.getType(), transactionDate);
+    }
+
+    // Create many inventory transactions at once. All rows are validated before anything is written,
+    // rows are inserted in JDBC batches and stock is applied as one net change per item.
+    // The batch is one transaction, so all of its items must live on the same shard.
+    @Transactional
+    public InventoryBatchResponseDTO createInventoryBatch(@ShardKey List<InventoryDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new IllegalArgumentException("Batch inventory tidak boleh kosong");
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < dtos.size() && errors.size() < MAX_REPORTED_ERRORS; i++) {
+            try {
+                validateInventoryInput(dtos.get(i));
+                if (dtos.get(i).getItemId() == null) {
+                    throw new IllegalArgumentException("Item harus ditentukan");
+                }
+            } catch (IllegalArgumentException ex) {
+                errors.add("Baris " + i + ": " + ex.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+
+        // Sorted by item id so concurrent batches lock item rows in the same order
+        Map<Long, Integer> stockChanges = new TreeMap<>();
+        for (InventoryDTO dto : dtos) {
+            stockChanges.merge(dto.getItemId(), StockSnapshotService.signedQty(dto.getType(), dto.getQty()), Integer::sum);
+        }
+        Set<Long> missingIds = new HashSet<>(stockChanges.keySet());
+        missingIds.removeAll(itemRepository.findExistingIds(stockChanges.keySet()));
+        if (!missingIds.isEmpty()) {
+            throw new EntityNotFoundException("Item tidak ditemukan dengan id: " + missingIds);
+        }
+
+        // Stock before the ledger rows: their FK checks share-lock the item rows, and two batches
+        // upgrading those shared locks for the stock UPDATE would deadlock each other
+        stockChanges.forEach(stockService::applyStockDelta);
+
+        LocalDateTime transactionDate = LocalDateTime.now();
+        List<Inventory> chunk = new ArrayList<>(batchSize);
+        for (InventoryDTO dto : dtos) {
+            Inventory inventory = new Inventory();
+            inventory.setItem(entityManager.getReference(Item.class, dto.getItemId()));
+            inventory.setQty(dto.getQty());
+            inventory.setType(dto.getType());
+            inventory.setTransactionDate(transactionDate);
+            entityManager.persist(inventory);
+            chunk.add(inventory);
+            if (chunk.size() == batchSize) {
+                flushChunk(chunk);
+            }
+        }
+        flushChunk(chunk);
+
+        InventoryBatchResponseDTO response = new InventoryBatchResponseDTO();
+        response.setProcessedRows(dtos.size());
+        response.setItemsAffected(stockChanges.size());
+        response.setStockChanges(stockChanges);
+        return response;
+    }
+
     // Update inventory transaction
     @Transactional
-    public InventoryDTO updateInventory(Long id, InventoryDTO dto) {
+    public InventoryDTO updateInventory(@ShardKey(ShardKey.Kind.INVENTORY) Long id, @ShardKey InventoryDTO dto) {
         validateInventoryInput(dto);
 
         Inventory existingInventory = inventoryRepository.findById(id)
@@ -97,47 +305,31 @@ public class InventoryService {
         Item item = itemRepository.findById(dto.getItemId())
                 .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan dengan id: " + dto.getItemId()));
 
-        // Reverse previous stock operation
-        boolean wasAddition = existingInventory.getType() == InventoryType.T;
-        stockService.updateStock(
-                existingInventory.getItem().getId(),
-                existingInventory.getQty(),
-                !wasAddition
-        );
-
-        // Check stock for new Withdrawal
-        if (dto.getType() == InventoryType.W) {
-            Integer currentStock = stockService.getCurrentStock(item.getId());
-            if (currentStock < dto.getQty()) {
-                // Rollback the previous reversal
-                stockService.updateStock(
-                        existingInventory.getItem().getId(),
-                        existingInventory.getQty(),
-                        wasAddition
-                );
-                throw new InsufficientStockException(
-                        String.format("Stok tidak mencukupi untuk penarikan. Stok saat ini: %d, Diminta: %d",
-                                currentStock, dto.getQty())
-                );
-            }
+        // Replace the previous stock operation with the new one
+        int previousDelta = StockSnapshotService.signedQty(existingInventory.getType(), existingInventory.getQty());
+        int newDelta = StockSnapshotService.signedQty(dto.getType(), dto.getQty());
+        Long previousItemId = existingInventory.getItem().getId();
+        if (previousItemId.equals(item.getId())) {
+            stockService.applyStockDelta(item.getId(), newDelta - previousDelta);
+        } else {
+            stockService.applyStockDelta(previousItemId, -previousDelta);
+            stockService.applyStockDelta(item.getId(), newDelta);
         }
 
-        // Apply new stock operation
-        boolean isAddition = dto.getType() == InventoryType.T;
-        stockService.updateStock(item.getId(), dto.getQty(), isAddition);
-
         // Update inventory record
+        stockSnapshotService.recordLedgerChange(previousItemId, existingInventory.getId(), -previousDelta);
         existingInventory.setItem(item);
         existingInventory.setQty(dto.getQty());
         existingInventory.setType(dto.getType());
         existingInventory.setTransactionDate(LocalDateTime.now());
         existingInventory = inventoryRepository.save(existingInventory);
+        stockSnapshotService.recordLedgerChange(item.getId(), existingInventory.getId(), newDelta);
         return convertToDTO(existingInventory);
     }
 
     // Delete inventory transaction
     @Transactional
-    public void deleteInventory(Long id) {
+    public void deleteInventory(@ShardKey(ShardKey.Kind.INVENTORY) Long id) {
         Inventory inventory = inventoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory tidak ditemukan dengan id: " + id));
         boolean wasAddition = inventory.getType() == InventoryType.T;
@@ -146,9 +338,21 @@ public class InventoryService {
                 inventory.getQty(),
                 !wasAddition
         );
+        stockSnapshotService.recordLedgerChange(inventory.getItem().getId(), inventory.getId(),
+                -StockSnapshotService.signedQty(inventory.getType(), inventory.getQty()));
         inventoryRepository.delete(inventory);
     }
 
+    private void flushChunk(List<Inventory> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        stockSnapshotService.recordLedgerInserts(chunk);
+        entityManager.flush();
+        entityManager.clear();
+        chunk.clear();
+    }
+
     private void validateInventoryInput(InventoryDTO dto) {
         if (dto.getQty() <= 0) {
             throw new IllegalArgumentException("Kuantitas harus lebih besar dari 0");
@@ -158,7 +362,7 @@ public class InventoryService {
         }
     }
 
-    private InventoryDTO convertToDTO(Inventory inventory) {
+    InventoryDTO convertToDTO(Inventory inventory) {
         InventoryDTO dto = new InventoryDTO();
         dto.setId(inventory.getId());
         dto.setItemId(inventory.getItem().getId());
@@ -0,0 +1,157 @@
+package com.management.inventory_management.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.management.inventory_management.dto.ItemCacheStatsDTO;
+import com.management.inventory_management.model.Item;
+import com.management.inventory_management.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded read cache for items. Catalog fields stay until the item is updated or deleted,
+// the stock field is dropped on every stock mutation and reloaded on its own on the next read.
+@Component
+public class ItemCache implements MeterBinder {
+
+    public record CachedItem(Long id, String name, Double price, Integer currentStock) {
+
+        CachedItem withStock(Integer stock) {
+            return new CachedItem(id, name, price, stock);
+        }
+    }
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Value("${inventory.hot-items.enabled:false}")
+    private boolean hotItemsEnabled;
+
+    @Value("${inventory.item-cache.maximum-size:10000}")
+    private long maximumSize = 10_000;
+
+    @Value("${inventory.item-cache.expire-after-write-ms:60000}")
+    private long expireAfterWriteMs = 60_000;
+
+    private Cache<Long, CachedItem> cache;
+
+    // Bumped on every eviction, so a load that raced with one is not kept
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .build();
+    }
+
+    // Catalog fields only, the stock field may be null
+    public Optional<CachedItem> find(Long itemId) {
+        return Optional.ofNullable(getOrLoad(itemId));
+    }
+
+    // Catalog fields plus a current stock value
+    public Optional<CachedItem> findWithStock(Long itemId) {
+        CachedItem cached = getOrLoad(itemId);
+        if (cached == null || cached.currentStock() != null) {
+            return Optional.ofNullable(cached);
+        }
+        Integer stock = itemRepository.findCurrentStockById(itemId).orElse(null);
+        CachedItem refreshed = cached.withStock(stock);
+        // Only store it if no eviction replaced the entry while the stock was being read
+        cache.asMap().computeIfPresent(itemId, (id, current) -> current == cached ? refreshed : current);
+        return Optional.of(refreshed);
+    }
+
+    public void evict(Long itemId) {
+        runAfterCommit(() -> {
+            evictions.incrementAndGet();
+            cache.invalidate(itemId);
+        });
+    }
+
+    public void evictStock(Long itemId) {
+        runAfterCommit(() -> {
+            evictions.incrementAndGet();
+            cache.asMap().computeIfPresent(itemId, (id, current) -> current.withStock(null));
+        });
+    }
+
+    public ItemCacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        ItemCacheStatsDTO dto = new ItemCacheStatsDTO();
+        dto.setSize(cache.estimatedSize());
+        dto.setHitCount(stats.hitCount());
+        dto.setMissCount(stats.missCount());
+        dto.setHitRate(stats.hitRate());
+        dto.setEvictionCount(stats.evictionCount());
+        return dto;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "items");
+    }
+
+    // Loads outside the cache's map lock: Cache.get(key, loader) would run the query inside a
+    // ConcurrentHashMap.compute, whose monitor pins a virtual thread's carrier for the whole query.
+    // Concurrent misses on one item may both load it.
+    private CachedItem getOrLoad(Long itemId) {
+        CachedItem cached = cache.getIfPresent(itemId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = evictions.get();
+        CachedItem loaded = load(itemId);
+        if (loaded == null) {
+            return null;
+        }
+        CachedItem existing = cache.asMap().putIfAbsent(itemId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        // An eviction after the read may have run before the put, take the possibly stale row out again
+        if (evictions.get() != seen) {
+            cache.asMap().remove(itemId, loaded);
+        }
+        return loaded;
+    }
+
+    private CachedItem load(Long itemId) {
+        return itemRepository.findForCache(itemId)
+                .map(this::toCached)
+                .orElse(null);
+    }
+
+    // The entity carries no bucket stock, with hot items the stock is read on its own with the buckets
+    private CachedItem toCached(Item item) {
+        return new CachedItem(item.getId(), item.getName(), item.getPrice(), hotItemsEnabled ? null : item.getCurrentStock());
+    }
+
+    // Evicting before commit would let a concurrent read cache the old row again
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,38 +1,66 @@
 package com.management.inventory_management.service;
 
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+import com.management.inventory_management.dto.ItemCacheStatsDTO;
 import com.management.inventory_management.dto.ItemDTO;
+import com.management.inventory_management.dto.ItemStockDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
 import com.management.inventory_management.model.Item;
 import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.StockBucketRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 public class ItemService {
 
+    // Most ids one stock lookup may ask for, and how many go into one IN list
+    static final int MAX_STOCK_LOOKUP_IDS = 10_000;
+    static final int STOCK_LOOKUP_CHUNK = 1_000;
+
     @Autowired
     private ItemRepository itemRepository;
 
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private StockBucketRepository stockBucketRepository;
+
+    // Only present when inventory.hot-items.enabled=true
+    @Autowired(required = false)
+    private HotItemSplitter hotItemSplitter;
+
     // Method untuk membuat item baru
     public ItemDTO createItem(ItemDTO itemDTO) {
         // Konversi dari DTO ke Entity
-        Item item = new Item();
-        item.setName(itemDTO.getName());
-        item.setPrice(itemDTO.getPrice());
-        item.setCurrentStock(itemDTO.getCurrentStock());
+        Item newItem = new Item();
+        newItem.setName(itemDTO.getName());
+        newItem.setPrice(itemDTO.getPrice());
+        newItem.setCurrentStock(itemDTO.getCurrentStock());
 
-        // Simpan ke database
-        item = itemRepository.save(item);
+        // Simpan ke database, item baru dibagi bergiliran ke semua shard
+        Item item = shardRouter.onShard(shardRouter.nextShard(), () -> itemRepository.save(newItem));
 
         // Konversi balik ke DTO untuk response
         ItemDTO response = new ItemDTO();
@@ -43,15 +71,52 @@ public class ItemService {
         return response;
     }
 
-    public ItemDTO getItem(Long id) {
-        Item item = itemRepository.findById(id)
+    public ItemDTO getItem(@ShardKey Long id) {
+        ItemCache.CachedItem item = itemCache.findWithStock(id)
                 .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan"));
-        ItemDTO dto = convertToDTO(item);
+        ItemDTO dto = new ItemDTO();
+        dto.setId(item.id());
+        dto.setName(item.name());
+        dto.setPrice(item.price());
+        dto.setCurrentStock(item.currentStock());
         return dto;
     }
 
+    // Current stock of many items with one query per chunk of ids, instead of a getItem call per
+    // item. Unknown ids are left out, the others keep the order they were asked in.
+    public List<ItemStockDTO> getStock(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_STOCK_LOOKUP_IDS) {
+            throw new IllegalArgumentException("Jumlah id item harus antara 1 dan " + MAX_STOCK_LOOKUP_IDS);
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Id item tidak boleh kosong");
+        }
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        Map<Integer, List<Long>> idsByShard = distinctIds.stream()
+                .collect(Collectors.groupingBy(shardRouter::shardOf, TreeMap::new, Collectors.toList()));
+
+        Map<Long, Integer> stock = new HashMap<>();
+        idsByShard.forEach((shard, shardIds) -> shardRouter.onShard(shard, () -> {
+            for (int from = 0; from < shardIds.size(); from += STOCK_LOOKUP_CHUNK) {
+                List<Long> chunk = shardIds.subList(from, Math.min(from + STOCK_LOOKUP_CHUNK, shardIds.size()));
+                itemRepository.findStockByIdIn(chunk).forEach(row -> stock.put(row.getId(), row.getCurrentStock()));
+            }
+            return null;
+        }));
+        return distinctIds.stream()
+                .filter(stock::containsKey)
+                .map(id -> new ItemStockDTO(id, stock.get(id)))
+                .toList();
+    }
+
+    public ItemCacheStatsDTO getCacheStats() {
+        return itemCache.stats();
+    }
+
+    @Transactional(readOnly = true)
     public PageResponseDTO<ItemDTO> getAllItems(int pageNo, int pageSize) {
-        Page<Item> page = itemRepository.findAll(PageRequest.of(pageNo, pageSize));
+        Page<Item> page = shardRouter.page(pageable -> withBucketStock(itemRepository.findAll(pageable)),
+                PageRequest.of(pageNo, pageSize, Sort.by("id")), Comparator.comparing(Item::getId));
 
         PageResponseDTO<ItemDTO> response = new PageResponseDTO<>();
         response.setContent(page.getContent().stream()
@@ -68,8 +133,21 @@ public class ItemService {
         return response;
     }
 
+    // Keyset pagination on id: no OFFSET, and no count(*) unless includeTotal is set
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<ItemDTO> getItemsAfter(String cursor, int pageSize, boolean includeTotal) {
+        PageCursor.validatePageSize(pageSize);
+        long afterId = cursor == null ? Long.MIN_VALUE : PageCursor.decodeId(cursor);
+        List<ItemDTO> items = shardRouter.list(() -> withBucketStock(itemRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1))),
+                        Comparator.comparing(Item::getId), pageSize + 1).stream()
+                .map(this::convertToDTO)
+                .toList();
+        return PageCursor.page(items, pageSize, item -> PageCursor.encode(item.getId()),
+                includeTotal ? shardRouter.count(itemRepository::count) : null);
+    }
+
     @Transactional
-    public ItemDTO updateItem(Long id, ItemDTO dto) {
+    public ItemDTO updateItem(@ShardKey Long id, ItemDTO dto) {
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan"));
 
@@ -77,19 +155,22 @@ public class ItemService {
         item.setPrice(dto.getPrice());
         item.setCurrentStock(dto.getCurrentStock());
         item = itemRepository.save(item);
+        stockService.stockOverwritten(id);
+        itemCache.evict(id);
         ItemDTO response = convertToDTO(item);
         return response;
     }
 
     // Method untuk mendapatkan semua item
+    @Transactional(readOnly = true)
     public List<ItemDTO> getAllItems() {
-        return itemRepository.findAll().stream()
+        return shardRouter.list(() -> withBucketStock(itemRepository.findAll()), Comparator.comparing(Item::getId)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     @Transactional
-    public void deleteItem(Long id) {
+    public void deleteItem(@ShardKey Long id) {
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan"));
 
@@ -100,14 +181,30 @@ public class ItemService {
             );
         }
         itemRepository.delete(item);
+        stockService.stockOverwritten(id);
+        itemCache.evict(id);
+    }
+
+    // Adds the buckets of split items, on the shard that loaded them. Without hot items there are none.
+    private <T extends Iterable<Item>> T withBucketStock(T items) {
+        if (hotItemSplitter == null) {
+            return items;
+        }
+        Map<Long, Item> byId = new HashMap<>();
+        items.forEach(item -> byId.put(item.getId(), item));
+        if (!byId.isEmpty()) {
+            stockBucketRepository.sumStocks(byId.keySet())
+                    .forEach(row -> byId.get(row.getId()).setBucketStock(row.getCurrentStock()));
+        }
+        return items;
     }
 
-    private ItemDTO convertToDTO(Item item) {
+    ItemDTO convertToDTO(Item item) {
         ItemDTO dto = new ItemDTO();
         dto.setId(item.getId());
         dto.setName(item.getName());
         dto.setPrice(item.getPrice());
-        dto.setCurrentStock(item.getCurrentStock());
+        dto.setCurrentStock(item.getTotalStock());
         return dto;
     }
 
@@ -0,0 +1,238 @@
+package com.management.inventory_management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.dto.OrderImportResultDTO;
+import com.management.inventory_management.dto.OrderImportResultDTO.Status;
+import com.management.inventory_management.model.Item;
+import com.management.inventory_management.model.Order;
+import com.management.inventory_management.model.OrderLine;
+import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Slf4j
+@Service
+public class OrderImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("orderNo", "itemId", "qty", "price");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${inventory.import.chunk-size:500}")
+    private int chunkSize = 500;
+
+    // Reads orders one line at a time and writes one NDJSON result per input line. Only the current
+    // chunk is held in memory, and every chunk is committed in its own transaction.
+    public void importOrders(InputStream in, DataFormat format, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        long lineNo = 0;
+        Map<String, Integer> csvHeader = null;
+        if (format == DataFormat.CSV) {
+            lineNo++;
+            csvHeader = parseCsvHeader(reader.readLine());
+        }
+
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(format == DataFormat.CSV ? parseCsv(lineNo, line, csvHeader) : parseJson(lineNo, line));
+            if (chunk.size() == chunkSize) {
+                writeResults(processChunk(chunk), writer);
+                chunk.clear();
+            }
+        }
+        writeResults(processChunk(chunk), writer);
+        writer.flush();
+    }
+
+    private List<OrderImportResultDTO> processChunk(List<ImportLine> chunk) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        // Orders already stored on any shard, plus the ones accepted earlier in this chunk
+        Set<Long> orderNos = new HashSet<>();
+        for (ImportLine line : chunk) {
+            if (line.order() != null) {
+                orderNos.add(line.order().getOrderNo());
+            }
+        }
+        Set<Long> takenOrderNos = new HashSet<>();
+        shardRouter.fanOut(() -> orderRepository.findExistingOrderNos(orderNos)).forEach(takenOrderNos::addAll);
+
+        // Orders live on the shard of their item, so a chunk commits one transaction per shard
+        Map<Integer, List<ImportLine>> linesByShard = new TreeMap<>();
+        for (ImportLine line : chunk) {
+            int shard = line.order() == null ? 0 : shardRouter.shardOf(line.order().getItemId());
+            linesByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(line);
+        }
+        List<OrderImportResultDTO> results = new ArrayList<>(chunk.size());
+        linesByShard.forEach((shard, lines) -> results.addAll(processShard(shard, lines, takenOrderNos)));
+        results.sort(Comparator.comparingLong(OrderImportResultDTO::getLine));
+        return results;
+    }
+
+    private List<OrderImportResultDTO> processShard(int shard, List<ImportLine> lines, Set<Long> takenOrderNos) {
+        try {
+            Set<Long> shardTakenOrderNos = new HashSet<>(takenOrderNos);
+            List<OrderImportResultDTO> results = shardRouter.onShard(shard,
+                    () -> transactionTemplate.execute(status -> importChunk(lines, shardTakenOrderNos)));
+            takenOrderNos.addAll(shardTakenOrderNos);
+            return results;
+        } catch (RuntimeException ex) {
+            log.error("Gagal mengimpor {} pesanan mulai baris {}", lines.size(), lines.get(0).lineNo(), ex);
+            return lines.stream()
+                    .map(line -> result(line, Status.FAILED, "Chunk gagal disimpan, tidak ada pesanan yang diterapkan"))
+                    .toList();
+        }
+    }
+
+    private List<OrderImportResultDTO> importChunk(List<ImportLine> chunk, Set<Long> takenOrderNos) {
+        Set<Long> itemIds = new HashSet<>();
+        for (ImportLine line : chunk) {
+            if (line.order() != null) {
+                itemIds.add(line.order().getItemId());
+            }
+        }
+        Set<Long> existingItemIds = new HashSet<>(itemRepository.findExistingIds(itemIds));
+
+        List<OrderImportResultDTO> results = new ArrayList<>(chunk.size());
+        for (ImportLine line : chunk) {
+            OrderDTO dto = line.order();
+            if (dto == null) {
+                results.add(result(line, Status.INVALID, line.error()));
+            } else if (takenOrderNos.contains(dto.getOrderNo())) {
+                results.add(result(line, Status.DUPLICATE, "Nomor pesanan sudah ada: " + dto.getOrderNo()));
+            } else if (!existingItemIds.contains(dto.getItemId())) {
+                results.add(result(line, Status.ITEM_NOT_FOUND, "Item tidak ditemukan dengan id: " + dto.getItemId()));
+            } else if (!stockService.tryWithdraw(dto.getItemId(), dto.getQty())) {
+                results.add(result(line, Status.INSUFFICIENT_STOCK, "Stok barang tidak mencukupi untuk item: " + dto.getItemId()));
+            } else {
+                // persist instead of save: orderNo is assigned by the client, save would merge and select first
+                Order order = new Order();
+                order.setOrderNo(dto.getOrderNo());
+                order.setTotalPrice(dto.getQty() * dto.getPrice());
+                entityManager.persist(order);
+                OrderLine orderLine = new OrderLine();
+                orderLine.setOrder(order);
+                orderLine.setLineNo(1);
+                orderLine.setItem(entityManager.getReference(Item.class, dto.getItemId()));
+                orderLine.setQty(dto.getQty());
+                orderLine.setPrice(dto.getPrice());
+                orderLine.setTotalPrice(order.getTotalPrice());
+                entityManager.persist(orderLine);
+                takenOrderNos.add(dto.getOrderNo());
+                results.add(result(line, Status.ACCEPTED, null));
+            }
+        }
+        // The entity manager can outlive the chunk's transaction, and would then keep every order
+        // imported so far managed and dirty-check all of them on each flush
+        entityManager.flush();
+        entityManager.clear();
+        return results;
+    }
+
+    private void writeResults(List<OrderImportResultDTO> results, Writer writer) throws IOException {
+        for (OrderImportResultDTO result : results) {
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private ImportLine parseJson(long lineNo, String line) {
+        try {
+            return validate(lineNo, objectMapper.readValue(line, OrderDTO.class));
+        } catch (JsonProcessingException ex) {
+            return new ImportLine(lineNo, null, null, "JSON tidak valid: " + ex.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> parseCsvHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Header CSV tidak ditemukan");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split(",");
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim(), i);
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+            throw new IllegalArgumentException("Header CSV harus berisi kolom: " + String.join(",", CSV_COLUMNS));
+        }
+        return columns;
+    }
+
+    private ImportLine parseCsv(long lineNo, String line, Map<String, Integer> header) {
+        String[] values = line.split(",", -1);
+        try {
+            OrderDTO dto = new OrderDTO();
+            dto.setOrderNo(Long.valueOf(values[header.get("orderNo")].trim()));
+            dto.setItemId(Long.valueOf(values[header.get("itemId")].trim()));
+            dto.setQty(Integer.valueOf(values[header.get("qty")].trim()));
+            dto.setPrice(Double.valueOf(values[header.get("price")].trim()));
+            return validate(lineNo, dto);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            return new ImportLine(lineNo, null, null, "Baris CSV tidak valid: " + line);
+        }
+    }
+
+    private ImportLine validate(long lineNo, OrderDTO dto) {
+        String error = null;
+        if (dto.getOrderNo() == null) {
+            error = "Nomor pesanan harus ditentukan";
+        } else if (dto.getItemId() == null) {
+            error = "Item harus ditentukan";
+        } else if (dto.getQty() == null || dto.getQty() <= 0) {
+            error = "Kuantitas harus lebih besar dari 0";
+        } else if (dto.getPrice() == null) {
+            error = "Harga harus ditentukan";
+        }
+        return error == null
+                ? new ImportLine(lineNo, dto.getOrderNo(), dto, null)
+                : new ImportLine(lineNo, dto.getOrderNo(), null, error);
+    }
+
+    private static OrderImportResultDTO result(ImportLine line, Status status, String message) {
+        return new OrderImportResultDTO(line.lineNo(), line.orderNo(), status, message);
+    }
+
+    private record ImportLine(long lineNo, Long orderNo, OrderDTO order, String error) {
+    }
+}
@@ -0,0 +1,331 @@
+package com.management.inventory_management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.dto.OrderLineDTO;
+import com.management.inventory_management.dto.OrderTicketDTO;
+import com.management.inventory_management.exception.InsufficientStockException;
+import com.management.inventory_management.model.OrderTicket;
+import com.management.inventory_management.model.OrderTicketStatus;
+import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.OrderRepository;
+import com.management.inventory_management.repository.OrderTicketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Asynchronous order intake. An order sent with async=true is checked for a free order number and
+// known items, then stored as a PENDING ticket on its item's shard, and the request returns as soon
+// as that insert commits. A poller claims pending tickets shard by shard, groups them by item and
+// hands every group to a worker, which creates the group's orders through OrderService in one
+// transaction: the item row is locked once per group instead of once per order, and one commit
+// covers the group. When an order of the group fails the whole group rolls back and each order is
+// retried in its own transaction. Rejected orders end FAILED with the reason; database errors put
+// the ticket back up to max-attempts times.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventory.order-queue.enabled", havingValue = "true")
+public class OrderQueueService {
+
+    private static final int MAX_MESSAGE_LENGTH = 500;
+
+    private static final List<OrderTicketStatus> OPEN = List.of(OrderTicketStatus.PENDING, OrderTicketStatus.PROCESSING);
+
+    @Autowired
+    private OrderTicketRepository orderTicketRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${inventory.order-queue.workers:4}")
+    private int workerCount = 4;
+
+    @Value("${inventory.order-queue.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${inventory.order-queue.poll-interval-ms:100}")
+    private long pollIntervalMs = 100;
+
+    @Value("${inventory.order-queue.claim-timeout-ms:60000}")
+    private long claimTimeoutMs = 60_000;
+
+    @Value("${inventory.order-queue.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    // Tickets claimed by this instance carry its worker id
+    private final String workerId = UUID.randomUUID().toString();
+
+    // Released when an enqueue commits, so the poller does not wait out its interval
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private ExecutorService poller;
+
+    private ExecutorService workers;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        running = true;
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-queue-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-queue-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.execute(this::poll);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Claimed tickets not finished by then go back to the queue after claim-timeout-ms
+        running = false;
+        wakeUp.release();
+        poller.shutdown();
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Transactional
+    public OrderTicketDTO enqueue(@ShardKey OrderDTO orderDTO) {
+        if (orderDTO.getOrderNo() == null) {
+            throw new IllegalArgumentException("Nomor pesanan harus ditentukan");
+        }
+        List<OrderLineDTO> lines = OrderService.linesOf(orderDTO);
+        // Checked before the ticket is acknowledged, not only when it is processed. Two requests racing
+        // with one order number can both pass, the second ticket then ends FAILED.
+        Long orderNo = orderDTO.getOrderNo();
+        if (shardRouter.findShard(() -> orderRepository.existsById(orderNo)
+                || orderTicketRepository.existsByOrderNoAndStatusIn(orderNo, OPEN)).isPresent()) {
+            throw new IllegalStateException("Nomor pesanan sudah ada: " + orderNo);
+        }
+        // All items of the order live on the shard this call is bound to
+        Set<Long> missingIds = lines.stream().map(OrderLineDTO::getItemId).collect(Collectors.toCollection(HashSet::new));
+        missingIds.removeAll(itemRepository.findExistingIds(missingIds));
+        if (!missingIds.isEmpty()) {
+            throw new EntityNotFoundException("Item tidak ditemukan dengan id: " + missingIds);
+        }
+
+        OrderTicket ticket = new OrderTicket();
+        ticket.setOrderNo(orderNo);
+        ticket.setItemId(lines.stream().map(OrderLineDTO::getItemId).min(Long::compare).orElseThrow());
+        ticket.setPayload(write(orderDTO));
+        ticket.setStatus(OrderTicketStatus.PENDING);
+        ticket.setCreatedAt(LocalDateTime.now());
+        ticket = orderTicketRepository.save(ticket);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp.release();
+                }
+            });
+        }
+        return convertToDTO(ticket);
+    }
+
+    // Ticket ids come from the shard's id range like item ids
+    @Transactional(readOnly = true)
+    public OrderTicketDTO getTicket(@ShardKey(ShardKey.Kind.TICKET) Long ticketId) {
+        return orderTicketRepository.findById(ticketId)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new EntityNotFoundException("Tiket pesanan tidak ditemukan: " + ticketId));
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                wakeUp.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+                shardRouter.forEachShard(this::drainShard);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Gagal memproses antrean pesanan", ex);
+            }
+        }
+    }
+
+    // Claims and processes tickets until the shard has fewer pending than a batch
+    void drainShard(int shard) {
+        transactionTemplate.executeWithoutResult(status -> orderTicketRepository.releaseStale(
+                LocalDateTime.now().minus(Duration.ofMillis(claimTimeoutMs)),
+                OrderTicketStatus.PENDING, OrderTicketStatus.PROCESSING));
+        List<OrderTicket> claimed;
+        do {
+            claimed = claim();
+            Map<Long, List<OrderTicket>> byItem = new LinkedHashMap<>();
+            for (OrderTicket ticket : claimed) {
+                byItem.computeIfAbsent(ticket.getItemId(), itemId -> new ArrayList<>()).add(ticket);
+            }
+            CompletableFuture.allOf(byItem.values().stream()
+                    .map(group -> CompletableFuture.runAsync(() -> shardRouter.onShard(shard, () -> {
+                        processGroup(group);
+                        return null;
+                    }), workers))
+                    .toArray(CompletableFuture[]::new)).join();
+        } while (running && claimed.size() == batchSize);
+    }
+
+    private List<OrderTicket> claim() {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = orderTicketRepository.findIdsByStatus(OrderTicketStatus.PENDING, Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            orderTicketRepository.claim(ids, workerId, LocalDateTime.now(),
+                    OrderTicketStatus.PENDING, OrderTicketStatus.PROCESSING);
+            return orderTicketRepository.findByWorkerAndStatusOrderById(workerId, OrderTicketStatus.PROCESSING);
+        });
+    }
+
+    void processGroup(List<OrderTicket> group) {
+        if (group.size() > 1) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> group.forEach(this::createOrder));
+                group.forEach(ticket -> count(ticket, OrderTicketStatus.DONE));
+                return;
+            } catch (RuntimeException ex) {
+                // One order took the group down with it, find it by giving every order its own transaction
+                log.debug("Batch {} pesanan untuk item {} gagal, diproses satu per satu",
+                        group.size(), group.get(0).getItemId(), ex);
+            }
+        }
+        group.forEach(this::processOne);
+    }
+
+    private void processOne(OrderTicket ticket) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> createOrder(ticket));
+            count(ticket, OrderTicketStatus.DONE);
+        } catch (ClaimLostException ex) {
+            log.warn(ex.getMessage());
+        } catch (InsufficientStockException | EntityNotFoundException | IllegalArgumentException | IllegalStateException ex) {
+            finish(ticket, OrderTicketStatus.FAILED, ex.getMessage());
+        } catch (RuntimeException ex) {
+            if (ticket.getAttempts() >= maxAttempts) {
+                log.error("Pesanan {} gagal diproses setelah {} percobaan", ticket.getOrderNo(), ticket.getAttempts(), ex);
+                finish(ticket, OrderTicketStatus.FAILED, "Pesanan gagal diproses setelah " + ticket.getAttempts() + " percobaan");
+            } else {
+                log.warn("Pesanan {} gagal diproses, dicoba lagi", ticket.getOrderNo(), ex);
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (orderTicketRepository.release(ticket.getId(), workerId,
+                            OrderTicketStatus.PROCESSING, OrderTicketStatus.PENDING) == 0) {
+                        log.warn(new ClaimLostException(ticket).getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    // The ticket turns DONE in the transaction that stores the order. When this worker no longer
+    // holds the ticket the order is rolled back, the worker that claimed it again stores it.
+    private void createOrder(OrderTicket ticket) {
+        orderService.createOrder(read(ticket));
+        if (orderTicketRepository.finish(ticket.getId(), workerId, OrderTicketStatus.PROCESSING,
+                OrderTicketStatus.DONE, null, LocalDateTime.now()) == 0) {
+            throw new ClaimLostException(ticket);
+        }
+    }
+
+    private void finish(OrderTicket ticket, OrderTicketStatus status, String message) {
+        String stored = message != null && message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+        Integer updated = transactionTemplate.execute(transaction -> orderTicketRepository.finish(ticket.getId(),
+                workerId, OrderTicketStatus.PROCESSING, status, stored, LocalDateTime.now()));
+        if (updated == null || updated == 0) {
+            log.warn(new ClaimLostException(ticket).getMessage());
+            return;
+        }
+        count(ticket, status);
+    }
+
+    private void count(OrderTicket ticket, OrderTicketStatus status) {
+        meterRegistry.counter("inventory.order-queue.processed", "status", status.name()).increment();
+        meterRegistry.timer("inventory.order-queue.wait")
+                .record(Duration.between(ticket.getCreatedAt(), LocalDateTime.now()));
+    }
+
+    private String write(OrderDTO orderDTO) {
+        try {
+            return objectMapper.writeValueAsString(orderDTO);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Pesanan tidak dapat disimpan: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    private OrderDTO read(OrderTicket ticket) {
+        try {
+            return objectMapper.readValue(ticket.getPayload(), OrderDTO.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Isi tiket " + ticket.getId() + " tidak valid: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    private OrderTicketDTO convertToDTO(OrderTicket ticket) {
+        return new OrderTicketDTO(ticket.getId(), ticket.getOrderNo(), ticket.getStatus(), ticket.getMessage(),
+                ticket.getCreatedAt(), ticket.getProcessedAt());
+    }
+
+    // This worker ran past claim-timeout and the ticket was released and claimed again
+    private static class ClaimLostException extends RuntimeException {
+
+        ClaimLostException(OrderTicket ticket) {
+            super("Tiket " + ticket.getId() + " untuk pesanan " + ticket.getOrderNo() + " sudah diambil worker lain");
+        }
+    }
+}
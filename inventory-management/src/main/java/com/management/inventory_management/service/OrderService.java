@@ -1,44 +1,77 @@
 package com.management.inventory_management.service;
 
+import com.management.inventory_management.dto.CursorPageResponseDTO;
 import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.dto.OrderLineDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
-import com.management.inventory_management.exception.InsufficientStockException;
-import com.management.inventory_management.model.Item;
 import com.management.inventory_management.model.Order;
+import com.management.inventory_management.model.OrderLine;
 import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.OrderLineRepository;
 import com.management.inventory_management.repository.OrderRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 @Service
 public class OrderService {
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
     @Autowired
     private ItemRepository itemRepository;
 
     @Autowired
     private StockService stockService;
 
-    public OrderDTO getOrder(Long orderNo) {
-        Order order = orderRepository.findById(orderNo)
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    static final int MAX_ORDER_LINES = 500;
+
+    @Transactional(readOnly = true)
+    public OrderDTO getOrder(@ShardKey(ShardKey.Kind.ORDER) Long orderNo) {
+        OrderDTO order = orderRepository.findDtoByOrderNo(orderNo)
                 .orElseThrow(() -> new EntityNotFoundException("Pesanan tidak ditemukan dengan nomor: " + orderNo));
-        return convertToDTO(order);
+        withLines(List.of(order));
+        return order;
     }
 
+    @Transactional(readOnly = true)
     public PageResponseDTO<OrderDTO> getAllOrders(int pageNo, int pageSize) {
-        Page<Order> orderPage = orderRepository.findAll(PageRequest.of(pageNo, pageSize));
+        // Lines are read on the shard of their orders, before the pages are merged
+        Page<OrderDTO> orderPage = shardRouter.page(pageable -> {
+                    Page<OrderDTO> page = orderRepository.findDtoPage(pageable);
+                    withLines(page.getContent());
+                    return page;
+                }, PageRequest.of(pageNo, pageSize),
+                Comparator.comparing(OrderDTO::getOrderNo));
 
         PageResponseDTO<OrderDTO> response = new PageResponseDTO<>();
-        response.setContent(orderPage.getContent().stream()
-                .map(this::convertToDTO)
-                .toList());
+        response.setContent(orderPage.getContent());
         response.setPageNo(orderPage.getNumber());
         response.setPageSize(orderPage.getSize());
         response.setTotalElements(orderPage.getTotalElements());
@@ -47,83 +80,184 @@ public class OrderService {
         return response;
     }
 
+    // Keyset pagination on orderNo: no OFFSET, and no count(*) unless includeTotal is set
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<OrderDTO> getOrdersAfter(String cursor, int pageSize, boolean includeTotal) {
+        PageCursor.validatePageSize(pageSize);
+        long afterOrderNo = cursor == null ? Long.MIN_VALUE : PageCursor.decodeId(cursor);
+        List<OrderDTO> orders = shardRouter.list(
+                () -> withLines(orderRepository.findPageAfter(afterOrderNo, Limit.of(pageSize + 1))),
+                Comparator.comparing(OrderDTO::getOrderNo), pageSize + 1);
+        return PageCursor.page(orders, pageSize, order -> PageCursor.encode(order.getOrderNo()),
+                includeTotal ? shardRouter.count(orderRepository::count) : null);
+    }
+
+    @Timed(value = "inventory.order.create", histogram = true)
     @Transactional
-    public OrderDTO createOrder(OrderDTO orderDTO) {
-        // Validate order number uniqueness
-        if (orderRepository.existsById(orderDTO.getOrderNo())) {
+    public OrderDTO createOrder(@ShardKey OrderDTO orderDTO) {
+        List<OrderLineDTO> lines = linesOf(orderDTO);
+        // Validate order number uniqueness, on every shard since the order goes to the item's shard
+        if (shardRouter.findShard(() -> orderRepository.existsById(orderDTO.getOrderNo())).isPresent()) {
             throw new IllegalStateException("Nomor pesanan sudah ada: " + orderDTO.getOrderNo());
         }
 
-        Item item = itemRepository.findById(orderDTO.getItemId())
-                .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan dengan id: " + orderDTO.getItemId()));
-
-        Integer currentStock = stockService.getCurrentStock(item.getId());
-        if (currentStock < orderDTO.getQty()) {
-            throw new InsufficientStockException(
-                    String.format("Stok barang tidak mencukupi %s. Diperlukan: %d, Tersedia: %d",
-                            item.getName(), orderDTO.getQty(), currentStock)
-            );
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (OrderLineDTO line : lines) {
+            deltas.merge(line.getItemId(), -line.getQty(), Integer::sum);
         }
-
         Order order = new Order();
         order.setOrderNo(orderDTO.getOrderNo());
-        order.setItem(item);
-        order.setQty(orderDTO.getQty());
-        order.setPrice(orderDTO.getPrice());
-        order.setTotalPrice(orderDTO.getQty() * orderDTO.getPrice());
-        stockService.updateStock(item.getId(), orderDTO.getQty(), false);
-        order = orderRepository.save(order);
-        return convertToDTO(order);
+        List<OrderLine> orderLines = toOrderLines(order, lines);
+        if (deltas.size() == 1 && stockService.isGroupCommit()) {
+            // The group commit worker stores the order together with the item's stock change
+            Map.Entry<Long, Integer> change = deltas.entrySet().iterator().next();
+            try {
+                stockService.applyStockDelta(change.getKey(), change.getValue(), orderRows(order, orderLines));
+            } catch (DuplicateKeyException ex) {
+                throw new IllegalStateException("Nomor pesanan sudah ada: " + orderDTO.getOrderNo());
+            }
+            return convertToDTO(order, orderLines);
+        }
+
+        // Guarded decrement of every item in one statement, fails with InsufficientStockException
+        // instead of overselling and with EntityNotFoundException for an unknown item, so the item
+        // rows themselves are never loaded. Either all lines get their stock or none does.
+        stockService.applyStockDeltas(deltas);
 
+        // persist instead of save: orderNo is assigned by the client, save would merge and select first
+        entityManager.persist(order);
+        orderLines.forEach(entityManager::persist);
+        return convertToDTO(order, orderLines);
     }
 
+    // Replaces all lines of the order. Stock moves by the difference per item, in one statement
     @Transactional
-    public OrderDTO updateOrder(Long orderNo, OrderDTO orderDTO) {
+    public OrderDTO updateOrder(@ShardKey(ShardKey.Kind.ORDER) Long orderNo, @ShardKey OrderDTO orderDTO) {
+        List<OrderLineDTO> lines = linesOf(orderDTO);
         Order existingOrder = orderRepository.findById(orderNo)
                 .orElseThrow(() -> new EntityNotFoundException("Pesanan tidak ditemukan dengan nomor: " + orderNo));
 
-        Item item = itemRepository.findById(orderDTO.getItemId())
-                .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan dengan id: " + orderDTO.getItemId()));
-        int stockDifference = orderDTO.getQty() - existingOrder.getQty();
-        if (stockDifference > 0) {
-            Integer currentStock = stockService.getCurrentStock(item.getId());
-            if (currentStock < stockDifference) {
-                throw new InsufficientStockException(
-                        String.format("Stok barang tidak mencukupi %s. Diperlukan required: %d, Tersedia: %d",
-                                item.getName(), stockDifference, currentStock)
-                );
-            }
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (OrderLineDTO line : orderLineRepository.findDtoByOrderNoIn(List.of(orderNo))) {
+            deltas.merge(line.getItemId(), line.getQty(), Integer::sum);
         }
-        // Update stock
-        if (stockDifference != 0) {
-            stockService.updateStock(item.getId(), Math.abs(stockDifference), stockDifference < 0);
+        for (OrderLineDTO line : lines) {
+            deltas.merge(line.getItemId(), -line.getQty(), Integer::sum);
         }
-        // Update order
-        existingOrder.setItem(item);
-        existingOrder.setQty(orderDTO.getQty());
-        existingOrder.setPrice(orderDTO.getPrice());
-        existingOrder.setTotalPrice(orderDTO.getQty() * orderDTO.getPrice());
-        existingOrder = orderRepository.save(existingOrder);
-        return convertToDTO(existingOrder);
+        stockService.applyStockDeltas(deltas);
+
+        orderLineRepository.deleteByOrderNo(orderNo);
+        List<OrderLine> orderLines = toOrderLines(existingOrder, lines);
+        orderLines.forEach(entityManager::persist);
+        return convertToDTO(existingOrder, orderLines);
     }
 
     // Delete order
     @Transactional
-    public void deleteOrder(Long orderNo) {
+    public void deleteOrder(@ShardKey(ShardKey.Kind.ORDER) Long orderNo) {
         Order order = orderRepository.findById(orderNo)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with number: " + orderNo));
-        stockService.updateStock(order.getItem().getId(), order.getQty(), true);
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (OrderLineDTO line : orderLineRepository.findDtoByOrderNoIn(List.of(orderNo))) {
+            deltas.merge(line.getItemId(), line.getQty(), Integer::sum);
+        }
+        stockService.applyStockDeltas(deltas);
+        orderLineRepository.deleteByOrderNo(orderNo);
         orderRepository.delete(order);
     }
 
-    private OrderDTO convertToDTO(Order order) {
-        OrderDTO dto = new OrderDTO();
-        dto.setOrderNo(order.getOrderNo());
-        dto.setItemId(order.getItem().getId());
-        dto.setQty(order.getQty());
-        dto.setPrice(order.getPrice());
-        dto.setTotalPrice(order.getTotalPrice());
+    // Writes the rows persist would, on a connection outside the persistence context. The values
+    // are read here, the entities stay on the calling thread.
+    private static Consumer<JdbcTemplate> orderRows(Order order, List<OrderLine> orderLines) {
+        Object[] header = {order.getOrderNo(), order.getTotalPrice()};
+        List<Object[]> lineRows = new ArrayList<>(orderLines.size());
+        for (OrderLine line : orderLines) {
+            lineRows.add(new Object[]{order.getOrderNo(), line.getLineNo(), line.getItem().getId(),
+                    line.getQty(), line.getPrice(), line.getTotalPrice()});
+        }
+        return jdbcTemplate -> {
+            jdbcTemplate.update("INSERT INTO orders (order_no, total_price) VALUES (?, ?)", header);
+            jdbcTemplate.batchUpdate("INSERT INTO order_lines (order_no, line_no, item_id, qty, price, total_price) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", lineRows);
+        };
+    }
+
+    OrderDTO convertToDTO(Order order, List<OrderLine> orderLines) {
+        OrderDTO dto = new OrderDTO(order.getOrderNo(), order.getTotalPrice());
+        List<OrderLineDTO> lines = new ArrayList<>(orderLines.size());
+        for (OrderLine line : orderLines) {
+            lines.add(new OrderLineDTO(order.getOrderNo(), line.getLineNo(), line.getItem().getId(),
+                    line.getQty(), line.getPrice(), line.getTotalPrice()));
+        }
+        setLines(dto, lines);
         return dto;
     }
 
+    // The lines of a request: lines when given, otherwise one line from itemId, qty and price
+    static List<OrderLineDTO> linesOf(OrderDTO orderDTO) {
+        List<OrderLineDTO> lines = orderDTO.getLines();
+        if (lines == null || lines.isEmpty()) {
+            lines = List.of(new OrderLineDTO(null, null, orderDTO.getItemId(), orderDTO.getQty(), orderDTO.getPrice(), null));
+        } else if (lines.size() > MAX_ORDER_LINES) {
+            throw new IllegalArgumentException("Jumlah baris pesanan maksimal " + MAX_ORDER_LINES);
+        }
+        for (OrderLineDTO line : lines) {
+            if (line.getItemId() == null) {
+                throw new IllegalArgumentException("Item harus ditentukan");
+            }
+            if (line.getQty() == null || line.getQty() <= 0) {
+                throw new IllegalArgumentException("Kuantitas harus lebih besar dari 0");
+            }
+            if (line.getPrice() == null) {
+                throw new IllegalArgumentException("Harga harus ditentukan");
+            }
+        }
+        return lines;
+    }
+
+    // Numbers the lines from 1 in request order and sets the order total
+    private List<OrderLine> toOrderLines(Order order, List<OrderLineDTO> lines) {
+        List<OrderLine> orderLines = new ArrayList<>(lines.size());
+        double totalPrice = 0;
+        for (OrderLineDTO line : lines) {
+            OrderLine orderLine = new OrderLine();
+            orderLine.setOrder(order);
+            orderLine.setLineNo(orderLines.size() + 1);
+            orderLine.setItem(itemRepository.getReferenceById(line.getItemId()));
+            orderLine.setQty(line.getQty());
+            orderLine.setPrice(line.getPrice());
+            orderLine.setTotalPrice(line.getQty() * line.getPrice());
+            totalPrice += orderLine.getTotalPrice();
+            orderLines.add(orderLine);
+        }
+        order.setTotalPrice(totalPrice);
+        return orderLines;
+    }
+
+    // One query for the lines of all given orders
+    private List<OrderDTO> withLines(List<OrderDTO> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, List<OrderLineDTO>> linesByOrder = new HashMap<>();
+        List<Long> orderNos = orders.stream().map(OrderDTO::getOrderNo).toList();
+        for (OrderLineDTO line : orderLineRepository.findDtoByOrderNoIn(orderNos)) {
+            linesByOrder.computeIfAbsent(line.getOrderNo(), key -> new ArrayList<>()).add(line);
+        }
+        for (OrderDTO order : orders) {
+            setLines(order, linesByOrder.getOrDefault(order.getOrderNo(), List.of()));
+        }
+        return orders;
+    }
+
+    private static void setLines(OrderDTO dto, List<OrderLineDTO> lines) {
+        dto.setLines(lines);
+        if (lines.size() == 1) {
+            OrderLineDTO line = lines.get(0);
+            dto.setItemId(line.getItemId());
+            dto.setQty(line.getQty());
+            dto.setPrice(line.getPrice());
+        }
+    }
+
 }
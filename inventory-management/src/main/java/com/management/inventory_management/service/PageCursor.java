@@ -0,0 +1,91 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Opaque keyset cursors: the sort key of the last row on a page, base64url encoded
+final class PageCursor {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private PageCursor() {
+    }
+
+    static String encode(long id) {
+        return encode(Long.toString(id));
+    }
+
+    static String encode(LocalDateTime date, long id) {
+        return encode(date + "|" + id);
+    }
+
+    static long decodeId(String cursor) {
+        try {
+            return Long.parseLong(decode(cursor));
+        } catch (NumberFormatException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    static LocalDateTime decodeDate(String cursor) {
+        String value = decode(cursor);
+        int separator = value.indexOf('|');
+        try {
+            return LocalDateTime.parse(value.substring(0, separator));
+        } catch (DateTimeParseException | StringIndexOutOfBoundsException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    static long decodeDateId(String cursor) {
+        String value = decode(cursor);
+        try {
+            return Long.parseLong(value.substring(value.indexOf('|') + 1));
+        } catch (NumberFormatException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    static void validatePageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Ukuran halaman harus antara 1 dan " + MAX_PAGE_SIZE);
+        }
+    }
+
+    // fetched holds up to pageSize + 1 rows, the extra row only tells whether another page exists
+    static <T> CursorPageResponseDTO<T> page(List<T> fetched, int pageSize,
+                                             Function<T, String> cursorOf, Long totalElements) {
+        boolean last = fetched.size() <= pageSize;
+        List<T> content = last ? fetched : fetched.subList(0, pageSize);
+
+        CursorPageResponseDTO<T> response = new CursorPageResponseDTO<>();
+        response.setContent(content);
+        response.setPageSize(pageSize);
+        response.setLast(last);
+        response.setNextCursor(last || content.isEmpty() ? null : cursorOf.apply(content.get(content.size() - 1)));
+        response.setTotalElements(totalElements);
+        return response;
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String cursor) {
+        return new IllegalArgumentException("Cursor tidak valid: " + cursor);
+    }
+}
@@ -0,0 +1,23 @@
+package com.management.inventory_management.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks the service method parameter that decides the shard the call runs on, see ShardRoutingAspect.
+// The parameter is an id of the given kind (all but order numbers come from the shard's id range),
+// an InventoryDTO or OrderDTO (their items), a collection of these or a map keyed by them.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+    Kind value() default Kind.ITEM;
+
+    enum Kind {
+        ITEM,
+        INVENTORY,
+        ORDER,
+        TICKET
+    }
+}
@@ -0,0 +1,202 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.config.ShardContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Places items on shards and runs queries across all of them. New items go to the shards in turn,
+// and every shard hands out item and ledger ids from its own range, so the shard of an item or a
+// ledger row follows from its id. Without inventory.sharding.enabled there is a single shard and
+// every query runs inline, in the caller's transaction.
+@Component
+public class ShardRouter {
+
+    // Shard n owns the ids [n * ID_RANGE, (n + 1) * ID_RANGE); must not change once data is stored
+    public static final long ID_RANGE = 1_000_000_000_000L;
+
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.sharding.urls:}")
+    private List<String> urls = List.of();
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private ExecutorService fanOutExecutor;
+
+    @PostConstruct
+    void start() {
+        if (!isSharded()) {
+            return;
+        }
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger threadNo = new AtomicInteger();
+        fanOutExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+    }
+
+    public int shardCount() {
+        return enabled ? urls.size() : 1;
+    }
+
+    public boolean isSharded() {
+        return shardCount() > 1;
+    }
+
+    // Shard of an item or ledger id. Ids outside every range go to shard 0, where they are not found.
+    public int shardOf(long id) {
+        long shard = id / ID_RANGE;
+        return id >= 0 && shard < shardCount() ? (int) shard : 0;
+    }
+
+    public int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount());
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        return ShardContext.call(shard, work);
+    }
+
+    // Runs work on every shard in turn on the calling thread; work manages its own transactions
+    public void forEachShard(IntConsumer work) {
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int current = shard;
+            ShardContext.call(shard, () -> {
+                work.accept(current);
+                return null;
+            });
+        }
+    }
+
+    // Runs work on every shard in turn on the calling thread, each in its own read-only
+    // transaction. For streamed reads whose output must not interleave.
+    public void forEachShardReadOnly(Runnable work) {
+        if (!isSharded()) {
+            work.run();
+            return;
+        }
+        forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> work.run()));
+    }
+
+    // Runs query on all shards in parallel, each in its own read-only transaction. Results are in shard order.
+    public <T> List<T> fanOut(Supplier<T> query) {
+        if (!isSharded()) {
+            return Collections.singletonList(query.get());
+        }
+        List<Future<T>> futures = new ArrayList<>(shardCount());
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int current = shard;
+            futures.add(fanOutExecutor.submit(() ->
+                    ShardContext.call(current, () -> readOnlyTransaction.execute(status -> query.get()))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Kueri lintas shard terputus", ex);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    // First shard on which test holds
+    public OptionalInt findShard(BooleanSupplier test) {
+        List<Boolean> found = fanOut(test::getAsBoolean);
+        for (int shard = 0; shard < found.size(); shard++) {
+            if (found.get(shard)) {
+                return OptionalInt.of(shard);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    public long count(LongSupplier query) {
+        return fanOut(query::getAsLong).stream().mapToLong(Long::longValue).sum();
+    }
+
+    public <T> List<T> list(Supplier<List<T>> query, Comparator<? super T> order) {
+        return list(query, order, Long.MAX_VALUE);
+    }
+
+    // Every shard must return its rows sorted by order and cut to limit; the merged rows are too
+    public <T> List<T> list(Supplier<List<T>> query, Comparator<? super T> order, long limit) {
+        if (!isSharded()) {
+            return query.get();
+        }
+        return fanOut(query).stream()
+                .flatMap(List::stream)
+                .sorted(order)
+                .limit(limit)
+                .toList();
+    }
+
+    // Offset page across shards: every shard returns its first (pageNo + 1) * pageSize rows sorted
+    // by order, and the merged rows are cut to the requested page. The rows read grow with the
+    // page number, the cursor endpoints do not have that problem.
+    public <T> Page<T> page(Function<Pageable, Page<T>> query, Pageable pageable, Comparator<? super T> order) {
+        if (!isSharded()) {
+            return query.apply(pageable);
+        }
+        Pageable head = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), pageable.getSort());
+        List<Page<T>> pages = fanOut(() -> query.apply(head));
+        List<T> rows = pages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(order)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(rows, pageable, pages.stream().mapToLong(Page::getTotalElements).sum());
+    }
+}
@@ -0,0 +1,95 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.config.ShardContext;
+import com.management.inventory_management.dto.InventoryDTO;
+import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.repository.OrderRepository;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Binds a service call to the shard of its @ShardKey parameters. Runs before the transaction
+// starts, so the session, and every nested service call, stays on that shard.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardRoutingAspect {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Around("execution(* com.management.inventory_management.service..*(.., @com.management.inventory_management.service.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!shardRouter.isSharded()) {
+            return joinPoint.proceed();
+        }
+        Set<Integer> shards = resolveShards(joinPoint);
+        if (shards.isEmpty()) {
+            return joinPoint.proceed();
+        }
+        if (shards.size() > 1) {
+            throw new IllegalArgumentException("Permintaan melibatkan item dari lebih dari satu shard");
+        }
+        int shard = shards.iterator().next();
+        if (shard != ShardContext.current() && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Transaksi tidak dapat berpindah ke shard lain");
+        }
+        Integer previous = ShardContext.bind(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private Set<Integer> resolveShards(ProceedingJoinPoint joinPoint) {
+        Annotation[][] annotations = ((MethodSignature) joinPoint.getSignature()).getMethod().getParameterAnnotations();
+        Object[] args = joinPoint.getArgs();
+        Set<Integer> shards = new HashSet<>();
+        for (int i = 0; i < args.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey shardKey) {
+                    collect(shardKey.value(), args[i], shards);
+                }
+            }
+        }
+        return shards;
+    }
+
+    private void collect(ShardKey.Kind kind, Object key, Set<Integer> shards) {
+        if (key instanceof Collection<?> keys) {
+            keys.forEach(element -> collect(kind, element, shards));
+        } else if (key instanceof Map<?, ?> map) {
+            collect(kind, map.keySet(), shards);
+        } else if (key instanceof InventoryDTO dto) {
+            collect(ShardKey.Kind.ITEM, dto.getItemId(), shards);
+        } else if (key instanceof OrderDTO dto) {
+            collect(ShardKey.Kind.ITEM, dto.getItemId(), shards);
+            if (dto.getLines() != null) {
+                dto.getLines().forEach(line -> collect(ShardKey.Kind.ITEM, line.getItemId(), shards));
+            }
+        } else if (key instanceof Long id) {
+            if (kind == ShardKey.Kind.ORDER) {
+                // Order numbers come from the client, only the shards themselves know where one is
+                shardRouter.findShard(() -> orderRepository.existsById(id)).ifPresent(shards::add);
+            } else {
+                shards.add(shardRouter.shardOf(id));
+            }
+        }
+    }
+}
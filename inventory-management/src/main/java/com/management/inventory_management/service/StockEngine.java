@@ -0,0 +1,200 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.ItemRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory stock counters in front of items.current_stock. Withdrawals are decided with a CAS
+// on the item's counter, so no database read or row lock is needed to accept them. Only valid
+// when a single application instance owns the stock of its items. The counters live in a
+// primitive StockIndex sized for inventory.stock-engine.capacity items, optionally off-heap.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.stock-engine.enabled", havingValue = "true")
+public class StockEngine implements MeterBinder {
+
+    public enum Durability {
+        SYNC,         // write the change to items.current_stock inside the caller's transaction
+        WRITE_BEHIND  // queue the change and let the flusher write it every flush interval
+    }
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.stock-engine.durability:SYNC}")
+    private Durability durability = Durability.SYNC;
+
+    // Most distinct items the engine will ever hold, the index is allocated for them up front
+    @Value("${inventory.stock-engine.capacity:1000000}")
+    private int capacity = 1_000_000;
+
+    @Value("${inventory.stock-engine.off-heap:false}")
+    private boolean offHeap;
+
+    private StockIndex counters;
+
+    // Committed changes not yet written to items.current_stock (WRITE_BEHIND only)
+    private final Map<Long, Integer> pendingDeltas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void allocateCounters() {
+        counters = new StockIndex(capacity, offHeap);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCounters() {
+        long lastId = 0;
+        List<ItemRepository.ItemStock> page;
+        do {
+            page = itemRepository.findStockAfter(lastId, Limit.of(LOAD_PAGE_SIZE));
+            for (ItemRepository.ItemStock stock : page) {
+                counters.putIfAbsent(stock.getId(), valueOf(stock.getCurrentStock()));
+                lastId = stock.getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        log.info("Stock engine memuat {} item, mode {}, {}", counters.keyCount(), durability,
+                offHeap ? "off-heap" : "heap");
+    }
+
+    public int getStock(Long itemId) {
+        return load(itemId);
+    }
+
+    public void add(Long itemId, int quantity) {
+        while (counters.addAndGet(itemId, quantity) == StockIndex.ABSENT) {
+            load(itemId);
+        }
+        persist(itemId, quantity);
+    }
+
+    public boolean tryWithdraw(Long itemId, int quantity) {
+        int current;
+        do {
+            current = load(itemId);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counters.compareAndSet(itemId, current, current - quantity));
+        persist(itemId, -quantity);
+        return true;
+    }
+
+    // Forget the item once the surrounding transaction commits, e.g. after its stock was overwritten
+    // or it was deleted. The next access reloads it from the database.
+    public void evict(Long itemId) {
+        runAfterCommit(() -> {
+            pendingDeltas.remove(itemId);
+            counters.remove(itemId);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.stock-engine.flush-interval-ms:50}")
+    public void flush() {
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> batch = new HashMap<>();
+        for (Long itemId : new ArrayList<>(pendingDeltas.keySet())) {
+            Integer delta = pendingDeltas.remove(itemId);
+            if (delta != null && delta != 0) {
+                batch.put(itemId, delta);
+            }
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                batch.forEach(itemRepository::incrementStock);
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            batch.forEach((itemId, delta) -> pendingDeltas.merge(itemId, delta, Integer::sum));
+            log.error("Gagal menulis {} perubahan stok, akan dicoba lagi", batch.size(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.stock-engine.index.keys", this, engine -> engine.counters.keyCount())
+                .description("Distinct items holding a slot in the stock index")
+                .register(registry);
+        Gauge.builder("inventory.stock-engine.index.slots", this, engine -> engine.counters.slotCount())
+                .register(registry);
+    }
+
+    // Current stock of the item, read from the database when it is not loaded yet
+    private int load(Long itemId) {
+        int stock = counters.get(itemId);
+        if (stock != StockIndex.ABSENT) {
+            return stock;
+        }
+        return counters.putIfAbsent(itemId, valueOf(itemRepository.findCurrentStockById(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan dengan id: " + itemId))));
+    }
+
+    private void persist(Long itemId, int delta) {
+        if (durability == Durability.SYNC) {
+            itemRepository.incrementStock(itemId, delta);
+        } else {
+            runAfterCommit(() -> pendingDeltas.merge(itemId, delta, Integer::sum));
+        }
+        // The counter already moved, give it back if the caller's transaction does not commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        counters.addAndGet(itemId, -delta);
+                    }
+                }
+            });
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int valueOf(Integer stock) {
+        return stock == null ? 0 : stock;
+    }
+}
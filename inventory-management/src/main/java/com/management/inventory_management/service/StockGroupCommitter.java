@@ -0,0 +1,328 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.model.InventoryType;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Group commit for stock changes and the rows stored with them, new ledger rows and single item
+// orders. Every item belongs to one shard, and each shard has a single worker that collects
+// requests for a short window. Per item it locks the items row once, decides every request against
+// the locked stock in arrival order, writes the accepted requests' rows, the net change in one
+// UPDATE and the ledger rows in one batch, all in the same transaction. Callers block on their own
+// outcome, so rows and their stock change are always committed or lost together.
+// The workers use their own connection pool: callers wait while holding a connection from the
+// main pool, so sharing it would let waiting callers starve the workers. The pool is built from
+// spring.datasource, which is the primary when inventory.replica is on; ShardingConfig refuses
+// inventory.sharding with group commit, as one pool cannot follow the shards.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.group-commit.enabled", havingValue = "true")
+public class StockGroupCommitter implements MeterBinder {
+
+    // allocationSize of inventory_seq, see Inventory
+    private static final long LEDGER_ID_BLOCK = 50;
+
+    // The id is taken when the row is created, a rejected row leaves a gap
+    record LedgerRow(long id, InventoryType type, int qty, LocalDateTime transactionDate) {
+
+        int delta() {
+            return StockSnapshotService.signedQty(type, qty);
+        }
+    }
+
+    // rows writes the caller's other rows on the worker's connection, once the change is accepted
+    record StockRequest(Long itemId, int delta, LedgerRow ledgerRow, Consumer<JdbcTemplate> rows,
+                        CompletableFuture<Boolean> result) {
+    }
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    // Only present when inventory.stock-projection.enabled=true
+    @Autowired(required = false)
+    private StockProjection stockProjection;
+
+    @Value("${inventory.stock-engine.enabled:false}")
+    private boolean stockEngineEnabled;
+
+    @Value("${inventory.group-commit.shards:8}")
+    private int shardCount = 8;
+
+    @Value("${inventory.group-commit.window-ms:2}")
+    private long windowMs = 2;
+
+    @Value("${inventory.group-commit.max-batch:256}")
+    private int maxBatch = 256;
+
+    private final List<BlockingQueue<StockRequest>> queues = new ArrayList<>();
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Fetches the next id block in a transaction of its own, see takeLedgerId
+    private TransactionTemplate sequenceTransaction;
+
+    // MySQL has no sequences, Hibernate emulates inventory_seq with a single row table
+    private boolean sequenceTable;
+
+    private long nextLedgerId = 1;
+
+    private long lastLedgerId = 0;
+
+    private ExecutorService workers;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        // The engine keeps the stock in memory, the workers would write past it
+        if (stockEngineEnabled) {
+            throw new IllegalStateException("inventory.group-commit tidak dapat digabung dengan inventory.stock-engine");
+        }
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("stock-group-commit");
+        // One connection per worker, plus one for the id block fetch
+        dataSource.setMaximumPoolSize(shardCount + 1);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        sequenceTransaction = new TransactionTemplate(transactionManager);
+        sequenceTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        sequenceTable = dataSource.getJdbcUrl().startsWith("jdbc:mysql:");
+
+        running = true;
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "stock-group-commit-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < shardCount; i++) {
+            BlockingQueue<StockRequest> queue = new LinkedBlockingQueue<>();
+            queues.add(queue);
+            workers.execute(() -> drain(queue));
+        }
+    }
+
+    public LedgerRow ledgerRow(InventoryType type, int qty, LocalDateTime transactionDate) {
+        return new LedgerRow(takeLedgerId(), type, qty, transactionDate);
+    }
+
+    // Completes with true once the change and its rows are committed, or false when a withdrawal
+    // found too little stock. Nothing is written for a rejected or failed request.
+    public CompletableFuture<Boolean> submit(Long itemId, int delta, LedgerRow ledgerRow, Consumer<JdbcTemplate> rows) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("Group commit sedang berhenti"));
+            return result;
+        }
+        queues.get(Math.floorMod(itemId.hashCode(), shardCount))
+                .add(new StockRequest(itemId, delta, ledgerRow, rows, result));
+        return result;
+    }
+
+    // Connection wait time of the committer pool, the main pool is instrumented by Spring Boot
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        dataSource.setMetricRegistry(registry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        for (BlockingQueue<StockRequest> queue : queues) {
+            List<StockRequest> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(request -> request.result()
+                    .completeExceptionally(new IllegalStateException("Group commit sedang berhenti")));
+        }
+        dataSource.close();
+    }
+
+    private void drain(BlockingQueue<StockRequest> queue) {
+        List<StockRequest> batch = new ArrayList<>();
+        while (running) {
+            try {
+                StockRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxBatch) {
+                    StockRequest next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                batch.forEach(request -> request.result().completeExceptionally(ex));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // One transaction per item in the batch, each with one row lock, one UPDATE and one ledger insert
+    void commit(List<StockRequest> batch) {
+        Map<Long, List<StockRequest>> byItem = new LinkedHashMap<>();
+        for (StockRequest request : batch) {
+            byItem.computeIfAbsent(request.itemId(), id -> new ArrayList<>()).add(request);
+        }
+        byItem.forEach(this::commitItem);
+    }
+
+    private void commitItem(Long itemId, List<StockRequest> requests) {
+        Boolean[] accepted = new Boolean[requests.size()];
+        RuntimeException[] failed = new RuntimeException[requests.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Integer> locked = jdbcTemplate.queryForList(
+                        "SELECT COALESCE(current_stock, 0) FROM items WHERE id = ? FOR UPDATE", Integer.class, itemId);
+                if (locked.isEmpty()) {
+                    throw new EntityNotFoundException("Item tidak ditemukan dengan id: " + itemId);
+                }
+                int stock = locked.get(0);
+                int net = 0;
+                List<LedgerRow> ledgerRows = new ArrayList<>();
+                // Decide in arrival order, as if the requests had run one after another
+                for (int i = 0; i < requests.size(); i++) {
+                    StockRequest request = requests.get(i);
+                    if (request.delta() < 0 && stock + request.delta() < 0) {
+                        accepted[i] = false;
+                        continue;
+                    }
+                    if (request.rows() != null) {
+                        // Rows that fail, e.g. on a duplicate key, fail their own request only
+                        Object savepoint = status.createSavepoint();
+                        try {
+                            request.rows().accept(jdbcTemplate);
+                        } catch (RuntimeException ex) {
+                            status.rollbackToSavepoint(savepoint);
+                            failed[i] = ex;
+                            continue;
+                        }
+                        status.releaseSavepoint(savepoint);
+                    }
+                    stock += request.delta();
+                    net += request.delta();
+                    accepted[i] = true;
+                    if (request.ledgerRow() != null) {
+                        ledgerRows.add(request.ledgerRow());
+                    }
+                }
+                if (net != 0) {
+                    jdbcTemplate.update(
+                            "UPDATE items SET current_stock = COALESCE(current_stock, 0) + ? WHERE id = ?", net, itemId);
+                }
+                if (ledgerRows.isEmpty()) {
+                    return;
+                }
+
+                List<Object[]> rows = new ArrayList<>(ledgerRows.size());
+                for (LedgerRow row : ledgerRows) {
+                    rows.add(new Object[]{row.id(), itemId, row.qty(), row.type().name(), row.transactionDate()});
+                }
+                // rewriteBatchedStatements turns the batch into one multi-row INSERT
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO inventory (id, item_id, qty, type, transaction_date) VALUES (?, ?, ?, ?, ?)", rows);
+                recordLedgerInserts(itemId, ledgerRows);
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Group commit untuk item {} gagal ({} permintaan)", itemId, requests.size(), ex);
+            requests.forEach(request -> request.result().completeExceptionally(ex));
+            return;
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            if (failed[i] != null) {
+                requests.get(i).result().completeExceptionally(failed[i]);
+            } else {
+                requests.get(i).result().complete(accepted[i]);
+            }
+        }
+    }
+
+    // Same as StockSnapshotService.recordLedgerInserts, on the worker's connection
+    private void recordLedgerInserts(Long itemId, List<LedgerRow> ledgerRows) {
+        if (stockProjection != null) {
+            for (LedgerRow row : ledgerRows) {
+                stockProjection.recordChange(itemId, row.id(), row.delta());
+            }
+        }
+        List<Long> watermark = jdbcTemplate.queryForList(
+                "SELECT last_inventory_id FROM stock_snapshots WHERE item_id = ? FOR UPDATE", Long.class, itemId);
+        if (watermark.isEmpty() || watermark.get(0) == null) {
+            return;
+        }
+        int covered = 0;
+        for (LedgerRow row : ledgerRows) {
+            if (row.id() <= watermark.get(0)) {
+                covered += row.delta();
+            }
+        }
+        if (covered != 0) {
+            jdbcTemplate.update("UPDATE stock_snapshots SET stock = stock + ?, updated_at = ? WHERE item_id = ?",
+                    covered, LocalDateTime.now(), itemId);
+        }
+    }
+
+    // Ledger ids come from inventory_seq in the blocks Hibernate's pooled optimizer uses, a fetched
+    // value is the top of a block of LEDGER_ID_BLOCK ids. The fetch commits on its own, so an id of a
+    // rolled back row is lost but a block Hibernate can take again is never handed out.
+    synchronized long takeLedgerId() {
+        if (nextLedgerId > lastLedgerId) {
+            long top = sequenceTransaction.execute(status -> fetchSequenceValue());
+            nextLedgerId = Math.max(1, top - LEDGER_ID_BLOCK + 1);
+            lastLedgerId = top;
+        }
+        return nextLedgerId++;
+    }
+
+    private long fetchSequenceValue() {
+        if (sequenceTable) {
+            Long value = jdbcTemplate.queryForObject("SELECT next_val FROM inventory_seq FOR UPDATE", Long.class);
+            jdbcTemplate.update("UPDATE inventory_seq SET next_val = ?", value + LEDGER_ID_BLOCK);
+            return value;
+        }
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR inventory_seq", Long.class);
+    }
+}
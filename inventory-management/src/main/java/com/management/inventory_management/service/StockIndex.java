@@ -0,0 +1,272 @@
+package com.management.inventory_management.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Open-addressing map from item id to stock on primitive storage: no Long/Integer boxes and no
+// entry objects, so millions of items cost 16 bytes per slot off-heap or 12 on-heap instead of
+// roughly 80 bytes for a ConcurrentHashMap<Long, AtomicInteger> entry. Reads are plain volatile
+// loads and every update is a CAS on the slot's value.
+//
+// Slots are claimed with a CAS on the key and never freed: remove() only marks the value ABSENT,
+// and the same item reuses its slot when it is loaded again. The table does not grow, it is sized
+// once for the number of distinct item ids it will ever see.
+public final class StockIndex {
+
+    // Value of a slot whose item is not loaded. Stock itself never reaches it.
+    public static final int ABSENT = Integer.MIN_VALUE;
+
+    private static final long EMPTY_KEY = 0;
+
+    private static final float MAX_LOAD = 0.75f;
+
+    // Keeps the off-heap table within a single direct buffer
+    public static final int MAX_KEYS = 1 << 25;
+
+    private final Storage storage;
+    private final int mask;
+    private final int maxKeys;
+    private final AtomicInteger keys = new AtomicInteger();
+
+    public StockIndex(int maxKeys, boolean offHeap) {
+        if (maxKeys < 1 || maxKeys > MAX_KEYS) {
+            throw new IllegalArgumentException("Kapasitas indeks stok harus antara 1 dan " + MAX_KEYS);
+        }
+        int slots = Integer.highestOneBit(Math.max(2, (int) Math.ceil(maxKeys / MAX_LOAD)) - 1) << 1;
+        this.storage = offHeap ? new OffHeapStorage(slots) : new HeapStorage(slots);
+        this.mask = slots - 1;
+        this.maxKeys = maxKeys;
+    }
+
+    // Stock of itemId, or ABSENT when it is not loaded
+    public int get(long itemId) {
+        int slot = find(itemId);
+        return slot < 0 ? ABSENT : storage.value(slot);
+    }
+
+    // Loads stock for itemId unless it is loaded already. Returns the stock now in the index.
+    public int putIfAbsent(long itemId, int stock) {
+        if (stock == ABSENT) {
+            throw new IllegalArgumentException("Stok di luar rentang: " + stock);
+        }
+        int slot = claim(itemId);
+        while (true) {
+            int current = storage.value(slot);
+            if (current != ABSENT) {
+                return current;
+            }
+            if (storage.casValue(slot, ABSENT, stock)) {
+                return stock;
+            }
+        }
+    }
+
+    public boolean compareAndSet(long itemId, int expected, int stock) {
+        int slot = find(itemId);
+        return slot >= 0 && expected != ABSENT && stock != ABSENT && storage.casValue(slot, expected, stock);
+    }
+
+    // Adds delta to a loaded item and returns the new stock, or ABSENT when the item is not loaded
+    public int addAndGet(long itemId, int delta) {
+        int slot = find(itemId);
+        if (slot < 0) {
+            return ABSENT;
+        }
+        while (true) {
+            int current = storage.value(slot);
+            if (current == ABSENT) {
+                return ABSENT;
+            }
+            int next = Math.addExact(current, delta);
+            if (next == ABSENT) {
+                throw new ArithmeticException("Stok di luar rentang untuk item " + itemId);
+            }
+            if (storage.casValue(slot, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    public void remove(long itemId) {
+        int slot = find(itemId);
+        if (slot >= 0) {
+            storage.setValue(slot, ABSENT);
+        }
+    }
+
+    // Calls action for every loaded item, in slot order. Updates made meanwhile may or may not be seen.
+    public void forEach(StockConsumer action) {
+        for (int slot = 0; slot <= mask; slot++) {
+            long key = storage.key(slot);
+            if (key != EMPTY_KEY) {
+                int stock = storage.value(slot);
+                if (stock != ABSENT) {
+                    action.accept(key, stock);
+                }
+            }
+        }
+    }
+
+    // Distinct item ids that ever took a slot
+    public int keyCount() {
+        return keys.get();
+    }
+
+    public int slotCount() {
+        return mask + 1;
+    }
+
+    @FunctionalInterface
+    public interface StockConsumer {
+        void accept(long itemId, int stock);
+    }
+
+    private int find(long itemId) {
+        checkKey(itemId);
+        for (int slot = hash(itemId), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long key = storage.key(slot);
+            if (key == itemId) {
+                return slot;
+            }
+            if (key == EMPTY_KEY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int claim(long itemId) {
+        checkKey(itemId);
+        for (int slot = hash(itemId), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long key = storage.key(slot);
+            if (key == itemId) {
+                return slot;
+            }
+            if (key == EMPTY_KEY) {
+                if (keys.incrementAndGet() > maxKeys) {
+                    keys.decrementAndGet();
+                    throw new IllegalStateException("Indeks stok penuh, kapasitas " + maxKeys + " item");
+                }
+                if (storage.casKey(slot, EMPTY_KEY, itemId)) {
+                    return slot;
+                }
+                keys.decrementAndGet();
+                if (storage.key(slot) == itemId) {
+                    return slot;
+                }
+            }
+        }
+        throw new IllegalStateException("Indeks stok penuh, kapasitas " + maxKeys + " item");
+    }
+
+    private int hash(long itemId) {
+        // Fibonacci hashing spreads sequential ids over the whole table
+        return (int) ((itemId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static void checkKey(long itemId) {
+        if (itemId == EMPTY_KEY) {
+            throw new IllegalArgumentException("Id item tidak valid: " + itemId);
+        }
+    }
+
+    private interface Storage {
+
+        long key(int slot);
+
+        boolean casKey(int slot, long expected, long key);
+
+        int value(int slot);
+
+        boolean casValue(int slot, int expected, int value);
+
+        void setValue(int slot, int value);
+    }
+
+    private static final class HeapStorage implements Storage {
+
+        private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(int[].class);
+
+        private final long[] keys;
+        private final int[] values;
+
+        HeapStorage(int slots) {
+            keys = new long[slots];
+            values = new int[slots];
+            Arrays.fill(values, ABSENT);
+        }
+
+        @Override
+        public long key(int slot) {
+            return (long) KEYS.getVolatile(keys, slot);
+        }
+
+        @Override
+        public boolean casKey(int slot, long expected, long key) {
+            return KEYS.compareAndSet(keys, slot, expected, key);
+        }
+
+        @Override
+        public int value(int slot) {
+            return (int) VALUES.getVolatile(values, slot);
+        }
+
+        @Override
+        public boolean casValue(int slot, int expected, int value) {
+            return VALUES.compareAndSet(values, slot, expected, value);
+        }
+
+        @Override
+        public void setValue(int slot, int value) {
+            VALUES.setVolatile(values, slot, value);
+        }
+    }
+
+    // 16 byte slots in a direct buffer: the key at offset 0 and the value at offset 8, both aligned
+    // so the buffer view handles can CAS them
+    private static final class OffHeapStorage implements Storage {
+
+        private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+        private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+        private static final int SLOT_BYTES = 16;
+
+        private final ByteBuffer buffer;
+
+        OffHeapStorage(int slots) {
+            buffer = ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            for (int slot = 0; slot < slots; slot++) {
+                buffer.putInt(slot * SLOT_BYTES + 8, ABSENT);
+            }
+        }
+
+        @Override
+        public long key(int slot) {
+            return (long) LONGS.getVolatile(buffer, slot * SLOT_BYTES);
+        }
+
+        @Override
+        public boolean casKey(int slot, long expected, long key) {
+            return LONGS.compareAndSet(buffer, slot * SLOT_BYTES, expected, key);
+        }
+
+        @Override
+        public int value(int slot) {
+            return (int) INTS.getVolatile(buffer, slot * SLOT_BYTES + 8);
+        }
+
+        @Override
+        public boolean casValue(int slot, int expected, int value) {
+            return INTS.compareAndSet(buffer, slot * SLOT_BYTES + 8, expected, value);
+        }
+
+        @Override
+        public void setValue(int slot, int value) {
+            INTS.setVolatile(buffer, slot * SLOT_BYTES + 8, value);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.InventoryRepository;
+import com.management.inventory_management.repository.InventoryRepository.ItemLedgerStock;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Ledger stock of every item kept in memory, so getCurrentStock is a lookup instead of a SUM over
+// the ledger. Each ledger change is added once its transaction commits. Only valid when a single
+// application instance writes the ledger, like StockEngine.
+//
+// Every snapshot interval the projection is written to inventory.stock-projection.file together
+// with the highest ledger id it covers. On startup the file is memory-mapped and loaded, and only
+// the ledger rows after that id are read from the database.
+//
+// Ledger ids come from a pooled sequence, so rows do not commit in id order. A snapshot is cut
+// while no ledger write is in flight: a writer holds the read side of cutLock from its first
+// ledger change until its transaction completes, the cut takes the write side. A change to a row
+// the file already covers (an update, a delete, archiving, or an insert whose id was handed out
+// before the cut) is not found by replaying newer ids, so it marks the file dirty first and a
+// dirty file is rebuilt from stock_snapshots and the delta rows instead.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.stock-projection.enabled", havingValue = "true")
+public class StockProjection implements MeterBinder {
+
+    private static final int MAGIC = 0x53544b50;
+    private static final int VERSION = 1;
+
+    // Header: magic, version, watermark, entry count and the dirty flag, padded to 32 bytes
+    private static final int HEADER_BYTES = 32;
+    private static final int WATERMARK_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int DIRTY_OFFSET = 20;
+
+    // Entry: item id and stock
+    private static final int ENTRY_BYTES = 12;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Value("${inventory.stock-projection.file:stock-projection.bin}")
+    private String file = "stock-projection.bin";
+
+    // Most distinct items the projection will ever hold, the index is allocated for them up front
+    @Value("${inventory.stock-projection.capacity:1000000}")
+    private int capacity = 1_000_000;
+
+    @Value("${inventory.stock-projection.off-heap:false}")
+    private boolean offHeap;
+
+    // How long a snapshot waits for in-flight ledger writes before it skips this round
+    @Value("${inventory.stock-projection.cut-timeout-ms:1000}")
+    private long cutTimeoutMs = 1000;
+
+    private StockIndex stock;
+
+    private final ReentrantReadWriteLock cutLock = new ReentrantReadWriteLock();
+
+    // Orders dirty marks against a new file taking the place of the old one
+    private final ReentrantLock fileLock = new ReentrantLock();
+
+    private volatile boolean loaded;
+
+    // Highest ledger id applied so far
+    private final AtomicLong appliedId = new AtomicLong();
+
+    // Watermark of the last snapshot cut; a change to a row at or below it makes that file dirty
+    private volatile long fileWatermark;
+
+    private volatile boolean dirty;
+
+    // Header of the snapshot file on disk, null until there is one
+    private MappedByteBuffer header;
+
+    @PostConstruct
+    void allocate() {
+        stock = new StockIndex(capacity, offHeap);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() throws IOException {
+        long started = System.nanoTime();
+        boolean fromFile;
+        cutLock.writeLock().lock();
+        try {
+            fromFile = loadFile();
+            if (!fromFile) {
+                loadFromDatabase();
+            }
+            loaded = true;
+        } finally {
+            cutLock.writeLock().unlock();
+        }
+        log.info("Proyeksi stok memuat {} item dari {} dalam {} ms", stock.keyCount(),
+                fromFile ? "snapshot" : "database", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        if (!fromFile) {
+            writeSnapshot();
+        }
+    }
+
+    // Ledger stock of the item, or null while the projection is still loading
+    public Integer getStock(Long itemId) {
+        if (!loaded) {
+            return null;
+        }
+        int current = stock.get(itemId);
+        // Every item with ledger rows is loaded, so a missing item has none
+        return current == StockIndex.ABSENT ? 0 : current;
+    }
+
+    // Call inside the transaction that writes, changes or removes the ledger row
+    public void recordChange(Long itemId, Long inventoryId, int signedQty) {
+        record(pending -> {
+            if (inventoryId <= fileWatermark) {
+                markDirty();
+            }
+            pending.add(itemId, inventoryId, signedQty);
+        });
+    }
+
+    // Call inside a transaction that moves quantities between ledger rows without changing any
+    // item's stock, like archiving. The snapshot cannot tell which side of its watermark they landed on.
+    public void recordRewrite() {
+        record(pending -> markDirty());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.stock-projection.snapshot-interval-ms:60000}")
+    public void writeSnapshot() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            persist();
+        } catch (IOException ex) {
+            log.error("Gagal menulis snapshot proyeksi stok ke {}", file, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        writeSnapshot();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.stock-projection.items", this, projection -> projection.stock.keyCount())
+                .description("Items held by the stock projection")
+                .register(registry);
+        Gauge.builder("inventory.stock-projection.applied-id", this, projection -> projection.appliedId.get())
+                .description("Highest ledger id applied to the stock projection")
+                .register(registry);
+    }
+
+    private void record(Consumer<PendingChanges> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges pending = new PendingChanges();
+            cutLock.readLock().lock();
+            try {
+                change.accept(pending);
+                pending.apply();
+            } finally {
+                cutLock.readLock().unlock();
+            }
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            cutLock.readLock().lock();
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        change.accept(pending);
+    }
+
+    private void markDirty() {
+        if (dirty) {
+            return;
+        }
+        fileLock.lock();
+        try {
+            if (!dirty) {
+                dirty = true;
+                if (header != null) {
+                    header.put(DIRTY_OFFSET, (byte) 1);
+                    header.force();
+                }
+            }
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private void add(long itemId, int delta) {
+        while (stock.addAndGet(itemId, delta) == StockIndex.ABSENT) {
+            stock.putIfAbsent(itemId, 0);
+        }
+    }
+
+    private boolean loadFile() throws IOException {
+        Path path = Path.of(file);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, READ, WRITE)) {
+            long size = channel.size();
+            MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_BYTES || snapshot.getInt(0) != MAGIC || snapshot.getInt(4) != VERSION
+                    || size < HEADER_BYTES + (long) snapshot.getInt(COUNT_OFFSET) * ENTRY_BYTES) {
+                log.warn("Snapshot proyeksi stok {} tidak valid, dibangun ulang dari database", path);
+                return false;
+            }
+            if (snapshot.get(DIRTY_OFFSET) != 0) {
+                log.info("Snapshot proyeksi stok {} berubah setelah ditulis, dibangun ulang dari database", path);
+                return false;
+            }
+            long watermark = snapshot.getLong(WATERMARK_OFFSET);
+            int count = snapshot.getInt(COUNT_OFFSET);
+            for (int entry = 0, position = HEADER_BYTES; entry < count; entry++, position += ENTRY_BYTES) {
+                stock.putIfAbsent(snapshot.getLong(position), snapshot.getInt(position + Long.BYTES));
+            }
+            List<ItemLedgerStock> tail = inventoryRepository.sumStockSince(watermark);
+            appliedId.set(Math.max(watermark, addAll(tail)));
+            fileWatermark = watermark;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            log.info("Snapshot proyeksi stok sampai id {}, {} item berubah sesudahnya", watermark, tail.size());
+            return true;
+        }
+    }
+
+    private void loadFromDatabase() {
+        long maxId = addAll(stockSnapshotRepository.findAllStock());
+        appliedId.set(Math.max(maxId, addAll(inventoryRepository.sumStockAfterSnapshots())));
+    }
+
+    // Returns the highest ledger id among the rows
+    private long addAll(List<ItemLedgerStock> rows) {
+        long maxId = 0;
+        for (ItemLedgerStock row : rows) {
+            add(row.getItemId(), Math.toIntExact(row.getStock()));
+            maxId = Math.max(maxId, row.getMaxId());
+        }
+        return maxId;
+    }
+
+    private void persist() throws IOException, InterruptedException {
+        Path path = Path.of(file);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            if (!cutLock.writeLock().tryLock(cutTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Snapshot proyeksi stok dilewati, penulisan ledger tidak selesai dalam {} ms", cutTimeoutMs);
+                return;
+            }
+            MappedByteBuffer snapshot;
+            try {
+                long watermark = appliedId.get();
+                snapshot = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_BYTES + (long) stock.keyCount() * ENTRY_BYTES);
+                int[] count = new int[1];
+                snapshot.position(HEADER_BYTES);
+                stock.forEach((itemId, itemStock) -> {
+                    snapshot.putLong(itemId).putInt(itemStock);
+                    count[0]++;
+                });
+                snapshot.putInt(0, MAGIC)
+                        .putInt(4, VERSION)
+                        .putLong(WATERMARK_OFFSET, watermark)
+                        .putInt(COUNT_OFFSET, count[0])
+                        .put(DIRTY_OFFSET, (byte) 0);
+                fileWatermark = watermark;
+                dirty = false;
+            } finally {
+                cutLock.writeLock().unlock();
+            }
+            snapshot.force();
+        }
+        Files.move(temp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+        publish(path);
+    }
+
+    // Changes after the cut may already have marked the old file, carry the mark over
+    private void publish(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ, WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            fileLock.lock();
+            try {
+                header = mapped;
+                if (dirty) {
+                    header.put(DIRTY_OFFSET, (byte) 1);
+                    header.force();
+                }
+            } finally {
+                fileLock.unlock();
+            }
+        }
+    }
+
+    // Ledger changes of one transaction. Holds the read side of cutLock until the transaction completes.
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final Map<Long, Integer> deltas = new HashMap<>();
+
+        private long maxId;
+
+        void add(Long itemId, Long inventoryId, int signedQty) {
+            deltas.merge(itemId, signedQty, Integer::sum);
+            maxId = Math.max(maxId, inventoryId);
+        }
+
+        // Before loading, the rows are picked up by the load itself
+        void apply() {
+            if (loaded) {
+                deltas.forEach(StockProjection.this::add);
+                appliedId.accumulateAndGet(maxId, Math::max);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            apply();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(StockProjection.this);
+            cutLock.readLock().unlock();
+        }
+    }
+}
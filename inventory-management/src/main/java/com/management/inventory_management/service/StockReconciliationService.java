@@ -0,0 +1,167 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.ReconciliationReportDTO;
+import com.management.inventory_management.dto.StockDriftDTO;
+import com.management.inventory_management.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Finds items whose current_stock no longer matches the ledger minus ordered quantities. The item
+// id space is split into ranges that are aggregated in parallel, one GROUP BY query per range,
+// instead of one stock query per item.
+@Slf4j
+@Service
+public class StockReconciliationService {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Only present when inventory.stock-engine.enabled=true
+    @Autowired(required = false)
+    private StockEngine stockEngine;
+
+    @Value("${inventory.reconcile.range-size:10000}")
+    private long rangeSize = 10_000;
+
+    // Each worker holds a database connection while its range query runs
+    @Value("${inventory.reconcile.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${inventory.reconcile.repair-batch-size:500}")
+    private int repairBatchSize = 500;
+
+    @Value("${inventory.reconcile.max-reported:1000}")
+    private int maxReported = 1000;
+
+    @Value("${inventory.reconcile.scheduled-repair:false}")
+    private boolean scheduledRepair;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${inventory.reconcile.cron:-}")
+    public void scheduledReconcile() {
+        ReconciliationReportDTO report = reconcile(scheduledRepair);
+        if (report.getDriftedItems() > 0) {
+            log.warn("Rekonsiliasi stok menemukan {} item tidak sesuai, {} diperbaiki",
+                    report.getDriftedItems(), report.getRepairedItems());
+        }
+    }
+
+    public ReconciliationReportDTO reconcile(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Rekonsiliasi stok sedang berjalan");
+        }
+        try {
+            return run(repair);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReconciliationReportDTO run(boolean repair) {
+        long start = System.currentTimeMillis();
+        ReconciliationReportDTO report = new ReconciliationReportDTO();
+
+        // Write-behind changes would otherwise show up as drift
+        if (stockEngine != null) {
+            stockEngine.flush();
+        }
+
+        List<ItemRepository.StockDrift> drifts = new ArrayList<>();
+        AtomicInteger ranges = new AtomicInteger();
+        // Default fork-join workers run with the system class loader, which cannot see the
+        // application classes inside the packaged jar
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setContextClassLoader(classLoader);
+            thread.setName("stock-reconcile-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            // Every shard numbers its items in its own id range
+            shardRouter.forEachShard(shard -> {
+                Long minId = itemRepository.findMinId();
+                Long maxId = itemRepository.findMaxId();
+                if (minId != null) {
+                    drifts.addAll(pool.invoke(new RangeTask(shard, minId, maxId, ranges)));
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        report.setRangesScanned(ranges.get());
+
+        report.setDriftedItems(drifts.size());
+        for (ItemRepository.StockDrift drift : drifts.subList(0, Math.min(drifts.size(), maxReported))) {
+            report.getDrifts().add(new StockDriftDTO(drift.getId(), drift.getCurrentStock(), drift.getExpectedStock()));
+        }
+
+        if (repair) {
+            long repaired = 0;
+            // A repair batch is one transaction, so it must not span shards
+            Map<Integer, List<Long>> idsByShard = drifts.stream()
+                    .map(ItemRepository.StockDrift::getId)
+                    .collect(Collectors.groupingBy(shardRouter::shardOf, TreeMap::new, Collectors.toList()));
+            for (List<Long> ids : idsByShard.values()) {
+                for (int from = 0; from < ids.size(); from += repairBatchSize) {
+                    repaired += stockService.repairStock(ids.subList(from, Math.min(ids.size(), from + repairBatchSize)));
+                }
+            }
+            report.setRepairedItems(repaired);
+        }
+
+        report.setDurationMs(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    // Splits [fromId, toId] in halves until a range is at most rangeSize ids wide
+    private class RangeTask extends RecursiveTask<List<ItemRepository.StockDrift>> {
+
+        private final int shard;
+        private final long fromId;
+        private final long toId;
+        private final AtomicInteger ranges;
+
+        RangeTask(int shard, long fromId, long toId, AtomicInteger ranges) {
+            this.shard = shard;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.ranges = ranges;
+        }
+
+        @Override
+        protected List<ItemRepository.StockDrift> compute() {
+            if (toId - fromId < rangeSize) {
+                ranges.incrementAndGet();
+                return shardRouter.onShard(shard, () -> itemRepository.findStockDrift(fromId, toId));
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            RangeTask left = new RangeTask(shard, fromId, middle, ranges);
+            left.fork();
+            List<ItemRepository.StockDrift> result = new ArrayList<>(new RangeTask(shard, middle + 1, toId, ranges).compute());
+            result.addAll(0, left.join());
+            return result;
+        }
+    }
+}
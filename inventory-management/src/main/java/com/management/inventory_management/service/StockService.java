@@ -2,42 +2,306 @@ package com.management.inventory_management.service;
 
 
 import com.management.inventory_management.exception.InsufficientStockException;
-import com.management.inventory_management.model.Item;
+import com.management.inventory_management.model.InventoryType;
 import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.StockBucketRepository;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+@Slf4j
 @Service
 public class StockService {
 
     @Autowired
     private ItemRepository itemRepository;
 
-    @Transactional
-    public void updateStock(Long itemId, Integer quantity, boolean isAddition) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan dengan id: " + itemId));
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Only present when inventory.stock-engine.enabled=true
+    @Autowired(required = false)
+    private StockEngine stockEngine;
 
-        Integer currentStock = itemRepository.calculateItemStock(itemId);
+    // Only present when inventory.stock-projection.enabled=true
+    @Autowired(required = false)
+    private StockProjection stockProjection;
+
+    // Only present when inventory.group-commit.enabled=true
+    @Autowired(required = false)
+    private StockGroupCommitter groupCommitter;
+
+    // Only present when inventory.hot-items.enabled=true
+    @Autowired(required = false)
+    private HotItemSplitter hotItemSplitter;
+
+    @Autowired
+    private StockBucketRepository stockBucketRepository;
+
+    @Timed(value = "inventory.stock.update", description = "Stock mutation including row lock wait", histogram = true)
+    @Transactional
+    public void updateStock(@ShardKey Long itemId, Integer quantity, boolean isAddition) {
+        if (stockEngine != null) {
+            updateStockInMemory(itemId, quantity, isAddition);
+            return;
+        }
 
-        int newStock;
         if (isAddition) {
-            newStock = currentStock + quantity;
-        } else {
-            newStock = currentStock - quantity;
-            if (newStock < 0) {
-                throw new InsufficientStockException(
+            if ((hotItemSplitter != null
+                    ? hotItemSplitter.add(itemId, quantity)
+                    : itemRepository.incrementStock(itemId, quantity)) == 0) {
+                throw new EntityNotFoundException("Item tidak ditemukan dengan id: " + itemId);
+            }
+            itemCache.evictStock(itemId);
+            return;
+        }
+
+        if (!tryWithdraw(itemId, quantity)) {
+            throw insufficientStock(itemId, quantity);
+        }
+    }
+
+    // Whether the calling service method can hand its writes to the group commit worker. The worker
+    // commits them in a transaction of its own, so the caller's transaction must be one it started
+    // and holds nothing else: rows of an enclosing transaction, e.g. a group of queued orders,
+    // could not roll back together with them.
+    public boolean isGroupCommit() {
+        return groupCommitter != null && TransactionAspectSupport.currentTransactionStatus().isNewTransaction();
+    }
+
+    // Group commit mode: the worker applies the stock change and inserts the ledger row in one
+    // transaction, so both are committed when this returns the row id and nothing is left to undo
+    // if the caller fails afterwards. Edits of existing rows stay in the caller's transaction.
+    @Timed(value = "inventory.stock.update", description = "Stock mutation including row lock wait", histogram = true)
+    public long insertLedgerRow(@ShardKey Long itemId, InventoryType type, int qty, LocalDateTime transactionDate) {
+        StockGroupCommitter.LedgerRow row = groupCommitter.ledgerRow(type, qty, transactionDate);
+        commit(itemId, row.delta(), row, null);
+        return row.id();
+    }
+
+    // Group commit mode: the worker applies the stock change and runs rows on its connection in
+    // one transaction, see insertLedgerRow
+    @Timed(value = "inventory.stock.update", description = "Stock mutation including row lock wait", histogram = true)
+    public void applyStockDelta(@ShardKey Long itemId, int delta, Consumer<JdbcTemplate> rows) {
+        commit(itemId, delta, null, rows);
+    }
+
+    private void commit(Long itemId, int delta, StockGroupCommitter.LedgerRow ledgerRow, Consumer<JdbcTemplate> rows) {
+        if (!await(groupCommitter.submit(itemId, delta, ledgerRow, rows))) {
+            throw insufficientStock(itemId, -delta);
+        }
+        itemCache.evictStock(itemId);
+    }
+
+    // Apply a signed stock change, withdrawals go through the guarded decrement
+    @Transactional
+    public void applyStockDelta(@ShardKey Long itemId, int delta) {
+        if (delta != 0) {
+            updateStock(itemId, Math.abs(delta), delta > 0);
+        }
+    }
+
+    // Signed stock changes for several items, all applied or none. In the database mode a single
+    // guarded UPDATE writes every item; InnoDB locks the rows of the id list in ascending order, so
+    // two calls sharing items never wait on each other in opposite orders. A withdrawal without
+    // enough stock throws, and the caller's transaction rolls back the rows already written.
+    @Timed(value = "inventory.stock.update-batch", description = "Multi item stock mutation including row lock wait", histogram = true)
+    @Transactional
+    public void applyStockDeltas(@ShardKey Map<Long, Integer> deltas) {
+        SortedMap<Long, Integer> changes = new TreeMap<>();
+        deltas.forEach((itemId, delta) -> {
+            if (delta != 0) {
+                changes.put(itemId, delta);
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (changes.size() == 1 || stockEngine != null
+                || (hotItemSplitter != null && changes.keySet().stream().anyMatch(hotItemSplitter::isSplit))) {
+            // Item by item in ascending id order, every mode undoes its own changes on rollback
+            changes.forEach(this::applyStockDelta);
+            return;
+        }
+
+        StringBuilder delta = new StringBuilder("CASE id");
+        StringBuilder ids = new StringBuilder();
+        int position = 1;
+        for (Long itemId : changes.keySet()) {
+            delta.append(" WHEN ?").append(position).append(" THEN ?").append(position + 1);
+            ids.append(ids.isEmpty() ? "?" : ", ?").append(position);
+            position += 2;
+        }
+        delta.append(" END");
+        Query update = entityManager.createNativeQuery("UPDATE items SET current_stock = COALESCE(current_stock, 0) + " + delta
+                + " WHERE id IN (" + ids + ") AND (" + delta + " >= 0 OR COALESCE(current_stock, 0) + " + delta + " >= 0)");
+        position = 1;
+        for (Map.Entry<Long, Integer> change : changes.entrySet()) {
+            update.setParameter(position, change.getKey());
+            update.setParameter(position + 1, change.getValue());
+            position += 2;
+        }
+
+        long started = System.nanoTime();
+        int updated = update.executeUpdate();
+        if (hotItemSplitter != null) {
+            long elapsed = System.nanoTime() - started;
+            changes.keySet().forEach(itemId -> hotItemSplitter.record(itemId, elapsed));
+        }
+        changes.keySet().forEach(itemCache::evictStock);
+        if (updated != changes.size()) {
+            throw batchFailure(changes);
+        }
+    }
+
+    // Names an item that made the batched UPDATE skip its row. Skipped rows still show the stock that
+    // was too low, but rows the UPDATE did write show their reduced stock and may look short as
+    // well, so with several candidates the first one in id order is reported.
+    private RuntimeException batchFailure(SortedMap<Long, Integer> changes) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (ItemRepository.ItemStock stock : itemRepository.findStockByIdIn(changes.keySet())) {
+            stocks.put(stock.getId(), stock.getCurrentStock() == null ? 0 : stock.getCurrentStock());
+        }
+        for (Map.Entry<Long, Integer> change : changes.entrySet()) {
+            Long itemId = change.getKey();
+            Integer currentStock = stocks.get(itemId);
+            if (currentStock == null) {
+                return new EntityNotFoundException("Item tidak ditemukan dengan id: " + itemId);
+            }
+            if (change.getValue() < 0 && currentStock + change.getValue() < 0) {
+                String name = itemCache.find(itemId).map(ItemCache.CachedItem::name).orElse(String.valueOf(itemId));
+                countInsufficientStock(itemId);
+                return new InsufficientStockException(
                         String.format("Stok barang tidak mencukupi %s. Diperlikan: %d, Tersedia: %d",
-                                item.getName(), quantity, currentStock)
+                                name, -change.getValue(), currentStock)
                 );
             }
         }
-        item.setCurrentStock(newStock);
-        itemRepository.save(item);
+        // Every row qualifies now, so one was deleted or changed between the UPDATE and this read
+        return new IllegalStateException("Stok beberapa item berubah bersamaan, silakan coba lagi");
+    }
+
+    // Guarded decrement: the stock check and the write are a single UPDATE, so concurrent
+    // withdrawals cannot both pass the check. Returns false instead of throwing so callers
+    // can report the outcome without marking the transaction rollback-only.
+    @Transactional
+    public boolean tryWithdraw(@ShardKey Long itemId, int quantity) {
+        boolean withdrawn;
+        if (stockEngine != null) {
+            withdrawn = stockEngine.tryWithdraw(itemId, quantity);
+        } else if (hotItemSplitter != null) {
+            withdrawn = hotItemSplitter.tryWithdraw(itemId, quantity);
+        } else {
+            withdrawn = itemRepository.decrementStockIfAvailable(itemId, quantity) > 0;
+        }
+        if (withdrawn) {
+            itemCache.evictStock(itemId);
+        }
+        return withdrawn;
+    }
+
+    // Resets current_stock of the given items to the ledger sum minus ordered quantities
+    @Transactional
+    public int repairStock(@ShardKey Collection<Long> itemIds) {
+        int repaired = itemRepository.repairStock(itemIds);
+        for (Long itemId : itemIds) {
+            stockOverwritten(itemId);
+            itemCache.evictStock(itemId);
+        }
+        return repaired;
+    }
+
+    // Call when items.current_stock was written directly with the item's whole stock, so in-memory
+    // stock does not go stale and the buckets of a split item are not counted on top of it
+    public void stockOverwritten(Long itemId) {
+        if (hotItemSplitter != null) {
+            stockBucketRepository.deleteByItemId(itemId);
+            hotItemSplitter.forget(itemId);
+        }
+        if (stockEngine != null) {
+            stockEngine.evict(itemId);
+        }
+    }
+
+    // Read from the stock projection when it is enabled and loaded, otherwise the latest snapshot
+    // plus the ledger rows written since, instead of summing the whole ledger
+    @Timed(value = "inventory.stock.calculate", description = "Ledger stock calculation query", histogram = true)
+    public Integer getCurrentStock(@ShardKey Long itemId) {
+        Integer projected = stockProjection == null ? null : stockProjection.getStock(itemId);
+        if (projected != null) {
+            return projected;
+        }
+        return stockSnapshotRepository.calculateCurrentStock(itemId);
+    }
+
+    private InsufficientStockException insufficientStock(Long itemId, int quantity) {
+        // Name comes from the cache, the stock shown must be the live value
+        ItemCache.CachedItem item = itemCache.find(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Item tidak ditemukan dengan id: " + itemId));
+        Integer currentStock = itemRepository.findCurrentStockById(itemId).orElse(0);
+        countInsufficientStock(itemId);
+        return new InsufficientStockException(
+                String.format("Stok barang tidak mencukupi %s. Diperlikan: %d, Tersedia: %d",
+                        item.name(), quantity, currentStock)
+        );
+    }
+
+    // No item id tag, it would add a time series per item ever rejected. The log names the item.
+    private void countInsufficientStock(Long itemId) {
+        meterRegistry.counter("inventory.stock.insufficient").increment();
+        log.info("Stok tidak mencukupi untuk item {}", itemId);
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
     }
-    public Integer getCurrentStock(Long itemId) {
-        return itemRepository.calculateItemStock(itemId);
+
+    private void updateStockInMemory(Long itemId, Integer quantity, boolean isAddition) {
+        if (isAddition) {
+            stockEngine.add(itemId, quantity);
+            itemCache.evictStock(itemId);
+        } else if (!stockEngine.tryWithdraw(itemId, quantity)) {
+            countInsufficientStock(itemId);
+            throw new InsufficientStockException(
+                    String.format("Stok barang tidak mencukupi dengan id %d. Diperlikan: %d, Tersedia: %d",
+                            itemId, quantity, stockEngine.getStock(itemId))
+            );
+        }
     }
 }
@@ -0,0 +1,73 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class StockSnapshotCompactor {
+
+    @Autowired
+    private StockSnapshotService stockSnapshotService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${inventory.snapshot.min-delta-rows:1000}")
+    private long minDeltaRows;
+
+    // Per shard, the highest ledger id already counted into pendingRows. Only decides which items
+    // are worth compacting, the snapshot itself never depends on it.
+    private final Map<Integer, Long> watermarks = new HashMap<>();
+
+    private final Map<Long, Long> pendingRows = new HashMap<>();
+
+    @Scheduled(fixedDelayString = "${inventory.snapshot.compact-interval-ms:300000}")
+    public void compactSnapshots() {
+        shardRouter.forEachShard(this::compactShard);
+    }
+
+    private void compactShard(int shard) {
+        long watermark = watermarks.getOrDefault(shard, 0L);
+        for (InventoryRepository.ItemActivity activity : inventoryRepository.findActivitySince(watermark)) {
+            pendingRows.merge(activity.getItemId(), activity.getRowCount(), Long::sum);
+            watermark = Math.max(watermark, activity.getMaxId());
+        }
+        watermarks.put(shard, watermark);
+
+        Iterator<Map.Entry<Long, Long>> iterator = pendingRows.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> entry = iterator.next();
+            if (entry.getValue() < minDeltaRows || shardRouter.shardOf(entry.getKey()) != shard) {
+                continue;
+            }
+            try {
+                ensureSnapshot(entry.getKey());
+                stockSnapshotService.compact(entry.getKey());
+                iterator.remove();
+            } catch (RuntimeException ex) {
+                log.warn("Gagal memadatkan snapshot stok untuk item {}", entry.getKey(), ex);
+            }
+        }
+    }
+
+    private void ensureSnapshot(Long itemId) {
+        try {
+            stockSnapshotService.ensureSnapshot(itemId);
+        } catch (DataIntegrityViolationException ex) {
+            // Another node created it first
+        }
+    }
+}
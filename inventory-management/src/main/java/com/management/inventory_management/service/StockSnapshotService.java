@@ -0,0 +1,96 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.model.Inventory;
+import com.management.inventory_management.model.InventoryType;
+import com.management.inventory_management.model.StockSnapshot;
+import com.management.inventory_management.repository.InventoryRepository;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class StockSnapshotService {
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired(required = false)
+    private StockProjection stockProjection;
+
+    public static int signedQty(InventoryType type, int qty) {
+        return type == InventoryType.T ? qty : -qty;
+    }
+
+    // Keep the snapshot exact when a ledger row at or below its checkpoint is written, changed or removed.
+    // Rows above the checkpoint are already picked up by the delta query.
+    @Transactional
+    public void recordLedgerChange(Long itemId, Long inventoryId, int signedQty) {
+        if (stockProjection != null) {
+            stockProjection.recordChange(itemId, inventoryId, signedQty);
+        }
+        stockSnapshotRepository.findLockedByItemId(itemId)
+                .filter(snapshot -> inventoryId <= snapshot.getLastInventoryId())
+                .ifPresent(snapshot -> {
+                    snapshot.setStock(snapshot.getStock() + signedQty);
+                    snapshot.setUpdatedAt(LocalDateTime.now());
+                });
+    }
+
+    // Same as recordLedgerChange for a chunk of newly inserted rows, with one locking read
+    @Transactional
+    public void recordLedgerInserts(List<Inventory> rows) {
+        if (stockProjection != null) {
+            rows.forEach(row -> stockProjection.recordChange(row.getItem().getId(), row.getId(),
+                    signedQty(row.getType(), row.getQty())));
+        }
+        Map<Long, List<Inventory>> rowsByItem = rows.stream()
+                .collect(Collectors.groupingBy(row -> row.getItem().getId()));
+        for (StockSnapshot snapshot : stockSnapshotRepository.findLockedByItemIdIn(rowsByItem.keySet())) {
+            int covered = rowsByItem.get(snapshot.getItemId()).stream()
+                    .filter(row -> row.getId() <= snapshot.getLastInventoryId())
+                    .mapToInt(row -> signedQty(row.getType(), row.getQty()))
+                    .sum();
+            if (covered != 0) {
+                snapshot.setStock(snapshot.getStock() + covered);
+                snapshot.setUpdatedAt(LocalDateTime.now());
+            }
+        }
+    }
+
+    // Create an empty checkpoint so compaction always has a row to lock
+    @Transactional
+    public void ensureSnapshot(Long itemId) {
+        if (!stockSnapshotRepository.existsById(itemId)) {
+            StockSnapshot snapshot = new StockSnapshot();
+            snapshot.setItemId(itemId);
+            stockSnapshotRepository.save(snapshot);
+        }
+    }
+
+    // Move the checkpoint forward to the latest ledger row of the item
+    @Transactional
+    public void compact(Long itemId) {
+        StockSnapshot snapshot = stockSnapshotRepository.findLockedByItemId(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Snapshot stok tidak ditemukan untuk item: " + itemId));
+
+        Long maxId = inventoryRepository.findMaxIdByItemId(itemId);
+        if (maxId == null || maxId <= snapshot.getLastInventoryId()) {
+            return;
+        }
+
+        Integer delta = inventoryRepository.sumStockBetween(itemId, snapshot.getLastInventoryId(), maxId);
+        snapshot.setStock(snapshot.getStock() + delta);
+        snapshot.setLastInventoryId(maxId);
+        snapshot.setUpdatedAt(LocalDateTime.now());
+    }
+}
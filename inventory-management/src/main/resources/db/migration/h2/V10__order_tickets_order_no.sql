@@ -0,0 +1,3 @@
+-- Same as mysql/V10
+
+CREATE INDEX idx_order_tickets_order_no_status ON order_tickets (order_no, status);
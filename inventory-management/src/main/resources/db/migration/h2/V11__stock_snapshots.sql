@@ -0,0 +1,9 @@
+-- Same as mysql/V11
+
+CREATE TABLE stock_snapshots (
+    item_id           BIGINT NOT NULL,
+    stock             INTEGER NOT NULL,
+    last_inventory_id BIGINT,
+    updated_at        TIMESTAMP(6),
+    PRIMARY KEY (item_id)
+);
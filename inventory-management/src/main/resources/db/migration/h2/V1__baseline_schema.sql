@@ -0,0 +1,30 @@
+-- Same schema as mysql/V1 for the embedded H2 database used by tests and benchmarks
+
+CREATE TABLE items (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name          VARCHAR(255),
+    price         FLOAT(53),
+    current_stock INTEGER,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE inventory (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    item_id          BIGINT NOT NULL,
+    qty              INTEGER NOT NULL,
+    type             ENUM ('T', 'W'),
+    transaction_date TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE orders (
+    order_no    BIGINT NOT NULL,
+    item_id     BIGINT,
+    qty         INTEGER NOT NULL,
+    price       FLOAT(53) NOT NULL,
+    total_price FLOAT(53),
+    PRIMARY KEY (order_no)
+);
+
+ALTER TABLE inventory ADD CONSTRAINT FKem4n7umseo46fdpsowncsbwac FOREIGN KEY (item_id) REFERENCES items (id);
+ALTER TABLE orders ADD CONSTRAINT FK247nnxschdfm8lre0ssvy3k1r FOREIGN KEY (item_id) REFERENCES items (id);
@@ -0,0 +1,7 @@
+-- Same indexes as mysql/V2
+
+CREATE INDEX idx_inventory_item_type_qty ON inventory (item_id, type, qty);
+
+CREATE INDEX idx_inventory_date_id ON inventory (transaction_date, id);
+
+CREATE INDEX idx_orders_item_order_no ON orders (item_id, order_no);
@@ -0,0 +1,5 @@
+-- Same as mysql/V3
+
+CREATE SEQUENCE inventory_seq START WITH 1 INCREMENT BY 50;
+
+ALTER SEQUENCE inventory_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM inventory);
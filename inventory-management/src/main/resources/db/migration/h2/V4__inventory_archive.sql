@@ -0,0 +1,15 @@
+-- Same as mysql/V4
+
+CREATE TABLE inventory_archive (
+    id               BIGINT NOT NULL,
+    item_id          BIGINT NOT NULL,
+    qty              INTEGER NOT NULL,
+    type             ENUM ('T', 'W'),
+    transaction_date TIMESTAMP(6),
+    archived_at      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_inventory_archive_item_date ON inventory_archive (item_id, transaction_date);
+
+ALTER TABLE inventory ADD COLUMN archived_rows INTEGER;
@@ -0,0 +1,9 @@
+-- Same as mysql/V5
+
+CREATE TABLE replica_heartbeat (
+    id          INTEGER NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, 0);
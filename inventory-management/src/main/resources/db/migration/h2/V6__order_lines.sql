@@ -0,0 +1,25 @@
+-- Same as mysql/V6
+
+CREATE TABLE order_lines (
+    order_no    BIGINT NOT NULL,
+    line_no     INTEGER NOT NULL,
+    item_id     BIGINT NOT NULL,
+    qty         INTEGER NOT NULL,
+    price       FLOAT(53) NOT NULL,
+    total_price FLOAT(53),
+    PRIMARY KEY (order_no, line_no)
+);
+
+CREATE INDEX idx_order_lines_item_qty ON order_lines (item_id, qty);
+
+ALTER TABLE order_lines ADD CONSTRAINT fk_order_lines_order FOREIGN KEY (order_no) REFERENCES orders (order_no);
+ALTER TABLE order_lines ADD CONSTRAINT fk_order_lines_item FOREIGN KEY (item_id) REFERENCES items (id);
+
+INSERT INTO order_lines (order_no, line_no, item_id, qty, price, total_price)
+SELECT order_no, 1, item_id, qty, price, total_price FROM orders WHERE item_id IS NOT NULL;
+
+ALTER TABLE orders DROP CONSTRAINT FK247nnxschdfm8lre0ssvy3k1r;
+DROP INDEX idx_orders_item_order_no;
+ALTER TABLE orders DROP COLUMN item_id;
+ALTER TABLE orders DROP COLUMN qty;
+ALTER TABLE orders DROP COLUMN price;
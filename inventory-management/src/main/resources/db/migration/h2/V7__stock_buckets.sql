@@ -0,0 +1,8 @@
+-- Same as mysql/V7
+
+CREATE TABLE stock_buckets (
+    item_id BIGINT NOT NULL,
+    bucket  INTEGER NOT NULL,
+    stock   INTEGER NOT NULL,
+    PRIMARY KEY (item_id, bucket)
+);
@@ -0,0 +1,18 @@
+-- Same as mysql/V8
+
+CREATE TABLE order_tickets (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    order_no     BIGINT NOT NULL,
+    item_id      BIGINT NOT NULL,
+    payload      CLOB NOT NULL,
+    status       ENUM ('PENDING', 'PROCESSING', 'DONE', 'FAILED') NOT NULL,
+    message      VARCHAR(500),
+    attempts     INTEGER NOT NULL DEFAULT 0,
+    worker       VARCHAR(64),
+    created_at   TIMESTAMP(6) NOT NULL,
+    claimed_at   TIMESTAMP(6),
+    processed_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_order_tickets_status_id ON order_tickets (status, id);
@@ -0,0 +1,5 @@
+-- Same as mysql/V9, without the batches: the embedded database is always small
+
+UPDATE inventory SET transaction_date = TIMESTAMP '1970-01-01 00:00:00' WHERE transaction_date IS NULL;
+
+ALTER TABLE inventory ALTER COLUMN transaction_date SET NOT NULL;
@@ -0,0 +1,6 @@
+-- OrderQueueService.enqueue looks for an open ticket with the order number before accepting one
+SET SESSION lock_wait_timeout = 10;
+
+ALTER TABLE order_tickets
+    ADD INDEX idx_order_tickets_order_no_status (order_no, status),
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,8 @@
+-- Per-item stock as of last_inventory_id, the stock of an item is this plus the ledger rows after it
+CREATE TABLE stock_snapshots (
+    item_id           BIGINT NOT NULL,
+    stock             INTEGER NOT NULL,
+    last_inventory_id BIGINT,
+    updated_at        DATETIME(6),
+    PRIMARY KEY (item_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,32 @@
+-- Schema as spring.jpa.hibernate.ddl-auto=update left it. Databases that already have these
+-- tables are baselined at this version (spring.flyway.baseline-on-migrate) and start at V2, so
+-- anything added since belongs in a later version, never here.
+
+CREATE TABLE items (
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    name          VARCHAR(255),
+    price         FLOAT(53),
+    current_stock INTEGER,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE inventory (
+    id               BIGINT NOT NULL AUTO_INCREMENT,
+    item_id          BIGINT NOT NULL,
+    qty              INTEGER NOT NULL,
+    type             ENUM ('T', 'W'),
+    transaction_date DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE orders (
+    order_no    BIGINT NOT NULL,
+    item_id     BIGINT,
+    qty         INTEGER NOT NULL,
+    price       FLOAT(53) NOT NULL,
+    total_price FLOAT(53),
+    PRIMARY KEY (order_no)
+) ENGINE = InnoDB;
+
+ALTER TABLE inventory ADD CONSTRAINT FKem4n7umseo46fdpsowncsbwac FOREIGN KEY (item_id) REFERENCES items (id);
+ALTER TABLE orders ADD CONSTRAINT FK247nnxschdfm8lre0ssvy3k1r FOREIGN KEY (item_id) REFERENCES items (id);
@@ -0,0 +1,14 @@
+-- Inventory ids used to come from AUTO_INCREMENT and now come from inventory_seq. MySQL has no
+-- sequences, Hibernate emulates one with a single row table. Hibernate's pooled optimizer treats
+-- the stored value as the top of a block of 50 ids, so start at the block right after the highest
+-- existing id. The column keeps its AUTO_INCREMENT, which only hands out ids when none is given,
+-- removing it would copy the whole table.
+CREATE TABLE inventory_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO inventory_seq VALUES (1);
+
+UPDATE inventory_seq
+SET next_val = (SELECT MAX(id) + 50 FROM inventory)
+WHERE next_val < (SELECT MAX(id) + 50 FROM inventory);
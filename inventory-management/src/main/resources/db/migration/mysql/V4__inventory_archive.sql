@@ -0,0 +1,16 @@
+-- Ledger rows moved out of inventory by the archiver, unchanged except for archived_at
+CREATE TABLE inventory_archive (
+    id               BIGINT NOT NULL,
+    item_id          BIGINT NOT NULL,
+    qty              INTEGER NOT NULL,
+    type             ENUM ('T', 'W'),
+    transaction_date DATETIME(6),
+    archived_at      DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_inventory_archive_item_date ON inventory_archive (item_id, transaction_date);
+
+-- Set on carry-forward rows to the number of ledger rows folded into them. INSTANT only touches
+-- the data dictionary, so the large table is not rebuilt.
+ALTER TABLE inventory ADD COLUMN archived_rows INTEGER, ALGORITHM = INSTANT;
@@ -0,0 +1,9 @@
+-- Stamped on the primary by every application instance, the age of the copy on the replica is
+-- the replication lag
+CREATE TABLE replica_heartbeat (
+    id          INTEGER NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, 0);
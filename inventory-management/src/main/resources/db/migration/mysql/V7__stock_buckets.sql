@@ -0,0 +1,9 @@
+-- Stock of a hot item split over several rows, so concurrent withdrawals lock different rows.
+-- The stock of an item is items.current_stock plus the sum of its buckets. No foreign key to
+-- items: the buckets are deleted in the same transaction as an item, after its row.
+CREATE TABLE stock_buckets (
+    item_id BIGINT NOT NULL,
+    bucket  INTEGER NOT NULL,
+    stock   INTEGER NOT NULL,
+    PRIMARY KEY (item_id, bucket)
+) ENGINE = InnoDB;
@@ -0,0 +1,17 @@
+-- Orders accepted by POST /api/orders?async=true and worked off by OrderQueueService, the id is
+-- the ticket returned to the client. A ticket becomes DONE in the transaction that stores its order.
+CREATE TABLE order_tickets (
+    id           BIGINT NOT NULL AUTO_INCREMENT,
+    order_no     BIGINT NOT NULL,
+    item_id      BIGINT NOT NULL,
+    payload      LONGTEXT NOT NULL,
+    status       ENUM ('PENDING', 'PROCESSING', 'DONE', 'FAILED') NOT NULL,
+    message      VARCHAR(500),
+    attempts     INTEGER NOT NULL DEFAULT 0,
+    worker       VARCHAR(64),
+    created_at   DATETIME(6) NOT NULL,
+    claimed_at   DATETIME(6),
+    processed_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_order_tickets_status_id (status, id)
+) ENGINE = InnoDB;
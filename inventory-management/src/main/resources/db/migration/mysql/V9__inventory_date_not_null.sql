@@ -0,0 +1,30 @@
+-- The ledger cursor seeks on (transaction_date, id) and cannot carry a NULL date. Every write
+-- stamps the date, rows without one predate that and sort first, as NULL did before.
+SET SESSION lock_wait_timeout = 10;
+
+-- Backfilled in batches of 10000 rows, each committed on its own, so no batch holds row locks on
+-- a large part of the ledger or builds up a long undo log. idx_inventory_date_id finds the rows.
+DROP PROCEDURE IF EXISTS backfill_inventory_date;
+
+DELIMITER //
+CREATE PROCEDURE backfill_inventory_date()
+BEGIN
+    DECLARE updated INT DEFAULT 1;
+    WHILE updated > 0 DO
+        UPDATE inventory SET transaction_date = '1970-01-01 00:00:00'
+        WHERE transaction_date IS NULL
+        LIMIT 10000;
+        SET updated = ROW_COUNT();
+        COMMIT;
+    END WHILE;
+END //
+DELIMITER ;
+
+CALL backfill_inventory_date();
+
+DROP PROCEDURE backfill_inventory_date;
+
+-- Rebuilds the table in place, reads and writes keep running
+ALTER TABLE inventory
+    MODIFY transaction_date DATETIME(6) NOT NULL,
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,87 @@
+package com.management.inventory_management.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource pool;
+
+    @Mock
+    private Connection connection;
+
+    @Test
+    void getConnection_NoPermitLeft_TimesOut() throws Exception {
+        when(pool.getConnection()).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "test", 1, 10, 50);
+
+        dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        verify(pool, times(1)).getConnection();
+    }
+
+    @Test
+    void close_ReturnsPermitOnce() throws Exception {
+        when(pool.getConnection()).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "test", 1, 10, 50);
+
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+        dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void getConnection_PoolFails_ReturnsPermit() throws Exception {
+        when(pool.getConnection()).thenThrow(new SQLException("down")).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "test", 1, 10, 50);
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("down");
+
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+
+    @Test
+    void getConnection_TooManyWaiting_RejectedAtOnce() throws Exception {
+        when(pool.getConnection()).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(pool, "test", 1, 1, 5_000);
+        Connection held = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        while (dataSource.waiting() == 0) {
+            Thread.onSpinWait();
+        }
+
+        long started = System.nanoTime();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+
+        held.close();
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.management.inventory_management.config;
+
+import com.management.inventory_management.dto.ItemDTO;
+import com.management.inventory_management.service.ItemService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Primary and replica are two separate in-memory databases that do not replicate, so every row
+// shows which one served a read
+@ActiveProfiles("replica")
+@SpringBootTest
+class ReplicaRoutingTest {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure()
+                .dataSource("jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+        replica = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        replica.update("DELETE FROM items");
+        replica.update("INSERT INTO items (name, price, current_stock) VALUES ('replica-copy', 1.0, 0)");
+        new JdbcTemplate(primaryDataSource).update("DELETE FROM items");
+        new JdbcTemplate(primaryDataSource).update(
+                "INSERT INTO items (name, price, current_stock) VALUES ('primary-copy', 1.0, 0)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    @Test
+    void readOnlyTransaction_ServedByReplica() {
+        replicateHeartbeat(0);
+
+        assertThat(itemNames()).containsExactly("replica-copy");
+    }
+
+    @Test
+    void laggingReplica_FallsBackToPrimary() {
+        replicateHeartbeat(60_000);
+
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(itemNames()).containsExactly("primary-copy");
+    }
+
+    @Test
+    void readYourWrites_PinsReadsToPrimaryAfterWrite() {
+        replicateHeartbeat(0);
+        ItemDTO item = new ItemDTO();
+        item.setName("written");
+        item.setPrice(1.0);
+        item.setCurrentStock(0);
+        itemService.createItem(item);
+
+        assertThat(itemNames()).containsExactly("primary-copy", "written");
+
+        ReplicaRoutingDataSource.unpin();
+        assertThat(itemNames()).containsExactly("replica-copy");
+    }
+
+    // Stands in for replication: the replica's heartbeat is lagMs behind when the monitor checks
+    private void replicateHeartbeat(long lagMs) {
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis() - lagMs);
+        replicaLagMonitor.check();
+    }
+
+    private List<String> itemNames() {
+        return itemService.getAllItems().stream().map(ItemDTO::getName).toList();
+    }
+}
@@ -0,0 +1,227 @@
+package com.management.inventory_management.config;
+
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+import com.management.inventory_management.dto.InventoryDTO;
+import com.management.inventory_management.dto.ItemDTO;
+import com.management.inventory_management.dto.ItemStockDTO;
+import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.dto.OrderLineDTO;
+import com.management.inventory_management.model.InventoryType;
+import com.management.inventory_management.service.DataFormat;
+import com.management.inventory_management.service.InventoryService;
+import com.management.inventory_management.service.ItemService;
+import com.management.inventory_management.service.OrderService;
+import com.management.inventory_management.service.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Three in-memory databases as shards; the test reads each of them directly to see where rows landed
+@ActiveProfiles("sharding")
+@SpringBootTest
+@AutoConfigureMockMvc
+class ShardRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        shards.clear();
+        for (int shard = 0; shard < shardRoutingDataSource.shardCount(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardRoutingDataSource.shard(shard));
+            jdbcTemplate.update("DELETE FROM order_lines");
+            jdbcTemplate.update("DELETE FROM orders");
+            jdbcTemplate.update("DELETE FROM inventory");
+            jdbcTemplate.update("DELETE FROM stock_snapshots");
+            jdbcTemplate.update("DELETE FROM items");
+            shards.add(jdbcTemplate);
+        }
+    }
+
+    @Test
+    void newItems_SpreadOverShards_IdsInShardRange() {
+        List<Long> ids = List.of(createItem().getId(), createItem().getId(), createItem().getId());
+
+        for (Long id : ids) {
+            int shard = (int) (id / ShardRouter.ID_RANGE);
+            assertThat(countRows(shard, "items", "id", id)).isEqualTo(1);
+        }
+        assertThat(ids.stream().map(id -> id / ShardRouter.ID_RANGE).distinct()).hasSize(3);
+    }
+
+    @Test
+    void ledgerAndOrders_StayOnItemShard() {
+        List<ItemDTO> items = List.of(createItem(), createItem(), createItem());
+        for (ItemDTO item : items) {
+            InventoryDTO added = inventoryService.createInventory(inventory(item.getId(), 10));
+            orderService.createOrder(order(item.getId() + 1, item.getId(), 3));
+
+            int shard = (int) (item.getId() / ShardRouter.ID_RANGE);
+            assertThat(added.getId() / ShardRouter.ID_RANGE).isEqualTo(shard);
+            assertThat(countRows(shard, "inventory", "item_id", item.getId())).isEqualTo(1);
+            assertThat(countRows(shard, "order_lines", "item_id", item.getId())).isEqualTo(1);
+            assertThat(itemService.getItem(item.getId()).getCurrentStock()).isEqualTo(7);
+            assertThat(inventoryService.getInventory(added.getId()).getItemId()).isEqualTo(item.getId());
+            assertThat(orderService.getOrder(item.getId() + 1).getItemId()).isEqualTo(item.getId());
+        }
+    }
+
+    // Through the web layer, where a session opened before the service call would pin the request to shard 0
+    @Test
+    void httpRequests_RunOnItemShard() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String created = mockMvc.perform(post("/api/items").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"item\",\"price\":1.0,\"currentStock\":0}"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            ids.add(objectMapper.readValue(created, ItemDTO.class).getId());
+        }
+        assertThat(ids.stream().map(id -> id / ShardRouter.ID_RANGE).distinct()).hasSize(3);
+
+        for (Long id : ids) {
+            int shard = (int) (id / ShardRouter.ID_RANGE);
+            assertThat(countRows(shard, "items", "id", id)).isEqualTo(1);
+            mockMvc.perform(post("/api/inventory").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"itemId\":" + id + ",\"qty\":4,\"type\":\"T\"}"))
+                    .andExpect(status().isOk());
+            assertThat(countRows(shard, "inventory", "item_id", id)).isEqualTo(1);
+            mockMvc.perform(get("/api/items/" + id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.currentStock").value(4));
+        }
+    }
+
+    @Test
+    void listQueries_MergeAllShards() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Long id = createItem().getId();
+            ids.add(id);
+            inventoryService.createInventory(inventory(id, 5));
+        }
+        List<Long> sortedIds = ids.stream().sorted().toList();
+
+        assertThat(itemService.getAllItems().stream().map(ItemDTO::getId)).containsExactlyElementsOf(sortedIds);
+        assertThat(itemService.getStock(ids)).extracting(ItemStockDTO::getItemId).containsExactlyElementsOf(ids);
+
+        var page = itemService.getAllItems(1, 4);
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(page.getContent().stream().map(ItemDTO::getId)).containsExactlyElementsOf(sortedIds.subList(4, 6));
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponseDTO<ItemDTO> cursorPage = itemService.getItemsAfter(cursor, 4, cursor == null);
+            if (cursor == null) {
+                assertThat(cursorPage.getTotalElements()).isEqualTo(6);
+            }
+            cursorPage.getContent().forEach(item -> paged.add(item.getId()));
+            cursor = cursorPage.getNextCursor();
+        } while (cursor != null);
+        assertThat(paged).containsExactlyElementsOf(sortedIds);
+
+        assertThat(inventoryService.getAllInventory(0, 10).getTotalElements()).isEqualTo(6);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        inventoryService.exportInventory(null, null, null, DataFormat.CSV, out);
+        assertThat(out.toString().split("\n")).hasSize(7);
+    }
+
+    @Test
+    void orderNumbers_UniqueAcrossShards() {
+        ItemDTO first = createItem();
+        ItemDTO second = createItem();
+        inventoryService.createInventory(inventory(first.getId(), 10));
+        inventoryService.createInventory(inventory(second.getId(), 10));
+        orderService.createOrder(order(42L, first.getId(), 1));
+
+        assertThatThrownBy(() -> orderService.createOrder(order(42L, second.getId(), 1)))
+                .isInstanceOf(IllegalStateException.class);
+
+        orderService.deleteOrder(42L);
+        assertThat(itemService.getItem(first.getId()).getCurrentStock()).isEqualTo(10);
+    }
+
+    @Test
+    void batchAcrossShards_Rejected() {
+        ItemDTO first = createItem();
+        ItemDTO second = createItem();
+
+        assertThatThrownBy(() -> inventoryService.createInventoryBatch(
+                List.of(inventory(first.getId(), 1), inventory(second.getId(), 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(inventoryService.createInventoryBatch(
+                List.of(inventory(first.getId(), 1), inventory(first.getId(), 2))).getProcessedRows()).isEqualTo(2);
+
+        OrderDTO order = order(7L, first.getId(), 1);
+        order.setLines(List.of(new OrderLineDTO(null, null, first.getId(), 1, 1.0, null),
+                new OrderLineDTO(null, null, second.getId(), 1, 1.0, null)));
+        assertThatThrownBy(() -> orderService.createOrder(order)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ItemDTO createItem() {
+        ItemDTO item = new ItemDTO();
+        item.setName("item");
+        item.setPrice(1.0);
+        item.setCurrentStock(0);
+        return itemService.createItem(item);
+    }
+
+    private static InventoryDTO inventory(Long itemId, int qty) {
+        InventoryDTO dto = new InventoryDTO();
+        dto.setItemId(itemId);
+        dto.setQty(qty);
+        dto.setType(InventoryType.T);
+        return dto;
+    }
+
+    private static OrderDTO order(Long orderNo, Long itemId, int qty) {
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderNo(orderNo);
+        dto.setItemId(itemId);
+        dto.setQty(qty);
+        dto.setPrice(1.0);
+        return dto;
+    }
+
+    private long countRows(int shard, String table, String column, Long value) {
+        return shards.get(shard).queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?", Long.class, value);
+    }
+}
@@ -0,0 +1,59 @@
+package com.management.inventory_management.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Latencies and outcomes of one endpoint during a load test run
+class EndpointStats {
+
+    private final String name;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long[] latenciesNanos = new long[1024];
+    private int count;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long latencyNanos) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+        latenciesNanos[count++] = latencyNanos;
+    }
+
+    // Expected refusals such as insufficient stock
+    void rejected() {
+        rejected.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    long failures() {
+        return failed.get();
+    }
+
+    synchronized String report(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+        return String.format("%-26s %8d %8d %6d %10.1f %9.2f %9.2f %9.2f",
+                name, count, rejected.get(), failed.get(), count / elapsedSeconds,
+                percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99));
+    }
+
+    static String header() {
+        return String.format("%-26s %8s %8s %6s %10s %9s %9s %9s",
+                "endpoint", "requests", "rejected", "failed", "req/s", "p50 ms", "p95 ms", "p99 ms");
+    }
+
+    private static double percentileMillis(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
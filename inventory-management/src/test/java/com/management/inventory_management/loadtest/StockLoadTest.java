@@ -0,0 +1,207 @@
+package com.management.inventory_management.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Concurrent HTTP load against the running application on an embedded database. Fires a mix of
+// order creation, inventory transactions and list reads at a few hot items, reports throughput
+// and latency per endpoint, then checks that stock is consistent. Run with:
+//   mvn -B test -Pload-test -Dloadtest.threads=32 -Dloadtest.duration-seconds=30
+// Settings: loadtest.threads, loadtest.duration-seconds, loadtest.items, loadtest.initial-stock,
+// loadtest.mix (weights for orders,inventory,reads) and loadtest.seed. Feature flags such as
+// -Dinventory.group-commit.enabled=true apply to the application under test. To compare request
+// handling on virtual threads with the platform-thread default, run the same settings on Java 21
+// with and without -Dspring.threads.virtual.enabled=true, e.g. with -Dloadtest.threads=400
+// -Dloadtest.items=1000 -Dserver.tomcat.threads.max=50 so clients outnumber the Tomcat threads.
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class StockLoadTest {
+
+    private final int threads = Integer.getInteger("loadtest.threads", 16);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 10);
+    private final int itemCount = Integer.getInteger("loadtest.items", 5);
+    private final int initialStock = Integer.getInteger("loadtest.initial-stock", 500);
+    private final long seed = Long.getLong("loadtest.seed", 42L);
+    private final int[] mix = parseMix(System.getProperty("loadtest.mix", "40,40,20"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    // Stock change each item should show, counted from the responses the clients saw
+    private final Map<Long, AtomicInteger> acceptedChanges = new ConcurrentHashMap<>();
+    private final AtomicLong nextOrderNo = new AtomicLong(1);
+
+    @Test
+    void concurrentMixKeepsStockConsistent() throws Exception {
+        for (String endpoint : List.of("POST /api/orders", "POST /api/inventory T", "POST /api/inventory W",
+                "GET /api/items", "GET /api/inventory/cursor")) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+        List<Long> itemIds = createItems();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long deadline = start + durationSeconds * 1_000_000_000L;
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(seed + t);
+            workers.add(pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    runOne(random, itemIds);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("%nLoad test: %d threads, %.1f s, %d items, mix orders/inventory/reads %d/%d/%d, %s server threads%n",
+                threads, elapsedSeconds, itemCount, mix[0], mix[1], mix[2], virtualThreads ? "virtual" : "platform");
+        System.out.println(EndpointStats.header());
+        stats.values().forEach(endpoint -> System.out.println(endpoint.report(elapsedSeconds)));
+
+        verifyStock(itemIds);
+        assertThat(stats.values()).allSatisfy(endpoint -> assertThat(endpoint.failures()).isZero());
+    }
+
+    private void runOne(Random random, List<Long> itemIds) throws Exception {
+        long itemId = itemIds.get(random.nextInt(itemIds.size()));
+        int qty = 1 + random.nextInt(5);
+        int pick = random.nextInt(mix[0] + mix[1] + mix[2]);
+        if (pick < mix[0]) {
+            String body = String.format("{\"orderNo\":%d,\"itemId\":%d,\"qty\":%d,\"price\":1000.0}",
+                    nextOrderNo.getAndIncrement(), itemId, qty);
+            if (send("POST /api/orders", post("/api/orders", body))) {
+                accept(itemId, -qty);
+            }
+        } else if (pick < mix[0] + mix[1]) {
+            boolean topUp = random.nextBoolean();
+            String body = String.format("{\"itemId\":%d,\"qty\":%d,\"type\":\"%s\"}", itemId, qty, topUp ? "T" : "W");
+            if (send(topUp ? "POST /api/inventory T" : "POST /api/inventory W", post("/api/inventory", body))) {
+                accept(itemId, topUp ? qty : -qty);
+            }
+        } else if (random.nextBoolean()) {
+            send("GET /api/items", get("/api/items?pageNo=0&pageSize=20"));
+        } else {
+            send("GET /api/inventory/cursor", get("/api/inventory/cursor?pageSize=20"));
+        }
+    }
+
+    // Returns true on success; 400 counts as an expected rejection, anything else as a failure
+    private boolean send(String endpoint, HttpRequest request) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        EndpointStats endpointStats = stats.get(endpoint);
+        endpointStats.record(System.nanoTime() - start);
+        if (response.statusCode() == 200) {
+            return true;
+        }
+        if (response.statusCode() == 400) {
+            endpointStats.rejected();
+        } else {
+            endpointStats.failed();
+        }
+        return false;
+    }
+
+    private void accept(long itemId, int change) {
+        acceptedChanges.get(itemId).addAndGet(change);
+    }
+
+    private List<Long> createItems() throws Exception {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            HttpResponse<String> item = client.send(
+                    post("/api/items", "{\"name\":\"load-item-" + i + "\",\"price\":1000.0,\"currentStock\":0}"),
+                    HttpResponse.BodyHandlers.ofString());
+            long itemId = objectMapper.readTree(item.body()).get("id").asLong();
+            // Initial stock goes through the ledger so ledger and current_stock start out equal
+            HttpResponse<String> topUp = client.send(
+                    post("/api/inventory", "{\"itemId\":" + itemId + ",\"qty\":" + initialStock + ",\"type\":\"T\"}"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(topUp.statusCode()).isEqualTo(200);
+            acceptedChanges.put(itemId, new AtomicInteger(initialStock));
+            itemIds.add(itemId);
+        }
+        return itemIds;
+    }
+
+    private void verifyStock(List<Long> itemIds) throws Exception {
+        for (Long itemId : itemIds) {
+            Integer currentStock = jdbcTemplate.queryForObject(
+                    "SELECT current_stock FROM items WHERE id = ?", Integer.class, itemId);
+            Integer ledger = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(CASE WHEN type = 'T' THEN qty ELSE -qty END), 0) FROM inventory WHERE item_id = ?",
+                    Integer.class, itemId);
+            Integer ordered = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(qty), 0) FROM order_lines WHERE item_id = ?", Integer.class, itemId);
+            JsonNode item = objectMapper.readTree(client.send(get("/api/items/" + itemId),
+                    HttpResponse.BodyHandlers.ofString()).body());
+
+            System.out.printf("item %d: current_stock=%d ledger=%d orders=%d accepted=%d api=%d%n", itemId,
+                    currentStock, ledger, ordered, acceptedChanges.get(itemId).get(), item.get("currentStock").asInt());
+            assertThat(currentStock).as("no negative stock for item %d", itemId).isNotNegative();
+            // Orders do not write ledger rows, so the ledger minus ordered quantities is the expected stock
+            assertThat(currentStock).as("current_stock matches ledger for item %d", itemId).isEqualTo(ledger - ordered);
+            assertThat(currentStock).as("no lost updates for item %d", itemId)
+                    .isEqualTo(acceptedChanges.get(itemId).get());
+        }
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+
+    private static int[] parseMix(String value) {
+        String[] parts = value.split(",");
+        return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                Integer.parseInt(parts[2].trim())};
+    }
+}
@@ -0,0 +1,60 @@
+package com.management.inventory_management.service;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadlockRetryAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private final DeadlockRetryAspect aspect = new DeadlockRetryAspect();
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void retry_DeadlockLoser_RunsOnceMore() throws Throwable {
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.proceed()).thenThrow(new CannotAcquireLockException("deadlock")).thenReturn("ok");
+
+        assertThat(aspect.retry(joinPoint)).isEqualTo("ok");
+        verify(joinPoint, times(2)).proceed();
+    }
+
+    @Test
+    void retry_SecondDeadlock_Thrown() throws Throwable {
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.proceed()).thenThrow(new DeadlockLoserDataAccessException("deadlock", null));
+
+        assertThatThrownBy(() -> aspect.retry(joinPoint)).isInstanceOf(DeadlockLoserDataAccessException.class);
+        verify(joinPoint, times(2)).proceed();
+    }
+
+    @Test
+    void retry_InsideTransaction_LeftToOutermostCall() throws Throwable {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        when(joinPoint.proceed()).thenThrow(new CannotAcquireLockException("deadlock"));
+
+        assertThatThrownBy(() -> aspect.retry(joinPoint)).isInstanceOf(CannotAcquireLockException.class);
+        verify(joinPoint, times(1)).proceed();
+    }
+}
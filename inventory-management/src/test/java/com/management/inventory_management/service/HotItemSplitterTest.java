@@ -0,0 +1,162 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.StockBucketRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotItemSplitterTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private StockBucketRepository stockBucketRepository;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    // Unsharded: every query runs inline
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
+    @InjectMocks
+    private HotItemSplitter splitter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(splitter, "buckets", 4);
+        ReflectionTestUtils.setField(splitter, "minSlowUpdates", 2L);
+        ReflectionTestUtils.setField(splitter, "mergeBelowUpdates", 2L);
+        splitter.bindTo(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void checkMode_GroupCommit_Refused() {
+        ReflectionTestUtils.setField(splitter, "groupCommitEnabled", true);
+
+        assertThatThrownBy(splitter::checkMode).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void split_SpreadsRowStockEvenly() {
+        inlineTransactions();
+        when(itemRepository.lockCurrentStock(1L)).thenReturn(Optional.of(10));
+        when(stockBucketRepository.lockStocks(1L)).thenReturn(List.of());
+
+        splitter.split(1L);
+
+        verify(stockBucketRepository).insert(1L, 0, 3);
+        verify(stockBucketRepository).insert(1L, 1, 3);
+        verify(stockBucketRepository).insert(1L, 2, 2);
+        verify(stockBucketRepository).insert(1L, 3, 2);
+        verify(itemRepository).updateItemStock(1L, 0);
+        assertThat(splitter.isSplit(1L)).isTrue();
+    }
+
+    @Test
+    void tryWithdraw_SplitItem_TakesFromBucketWithEnoughStock() {
+        split(1L);
+        when(stockBucketRepository.findStocks(1L)).thenReturn(List.of(0, 5, 1, 0));
+        when(stockBucketRepository.decrementIfAvailable(1L, 1, 3)).thenReturn(1);
+
+        assertThat(splitter.tryWithdraw(1L, 3)).isTrue();
+
+        verify(itemRepository, never()).decrementStockIfAvailable(any(), anyInt());
+        verify(stockBucketRepository, never()).lockStocks(1L);
+    }
+
+    @Test
+    void tryWithdraw_NoBucketLargeEnough_SpillsOverRowAndBuckets() {
+        split(1L);
+        when(stockBucketRepository.findStocks(1L)).thenReturn(List.of(2, 2, 2, 2));
+        when(itemRepository.lockCurrentStock(1L)).thenReturn(Optional.of(1));
+        when(stockBucketRepository.lockStocks(1L)).thenReturn(List.of(2, 2, 2, 2));
+
+        assertThat(splitter.tryWithdraw(1L, 6)).isTrue();
+
+        verify(itemRepository).updateItemStock(1L, 0);
+        verify(stockBucketRepository).updateStock(1L, 0, 0);
+        verify(stockBucketRepository).updateStock(1L, 1, 0);
+        verify(stockBucketRepository).updateStock(1L, 2, 1);
+        verify(stockBucketRepository, never()).updateStock(1L, 3, 2);
+    }
+
+    @Test
+    void tryWithdraw_NotEnoughAcrossBuckets_ReturnsFalse() {
+        split(1L);
+        when(stockBucketRepository.findStocks(1L)).thenReturn(List.of(1, 1, 1, 1));
+        when(itemRepository.lockCurrentStock(1L)).thenReturn(Optional.of(0));
+        when(stockBucketRepository.lockStocks(1L)).thenReturn(List.of(1, 1, 1, 1));
+
+        assertThat(splitter.tryWithdraw(1L, 5)).isFalse();
+
+        verify(stockBucketRepository, never()).updateStock(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void tryWithdraw_UnsplitItem_UsesItemsRow() {
+        when(itemRepository.decrementStockIfAvailable(1L, 2)).thenReturn(1);
+
+        assertThat(splitter.tryWithdraw(1L, 2)).isTrue();
+
+        verifyNoInteractions(stockBucketRepository);
+    }
+
+    @Test
+    void rebalance_SplitsSlowItemAndMergesColdOne() {
+        split(2L);
+        inlineTransactions();
+        when(stockBucketRepository.findSplitItemIds()).thenReturn(List.of(2L));
+        when(itemRepository.lockCurrentStock(1L)).thenReturn(Optional.of(8));
+        when(itemRepository.lockCurrentStock(2L)).thenReturn(Optional.of(0));
+        when(stockBucketRepository.lockStocks(1L)).thenReturn(List.of());
+        when(stockBucketRepository.lockStocks(2L)).thenReturn(List.of(3, 4));
+        long slow = TimeUnit.MILLISECONDS.toNanos(50);
+        splitter.record(1L, slow);
+        splitter.record(1L, slow);
+
+        splitter.rebalance();
+
+        assertThat(splitter.isSplit(1L)).isTrue();
+        verify(stockBucketRepository, times(4)).insert(eq(1L), anyInt(), eq(2));
+        assertThat(splitter.isSplit(2L)).isFalse();
+        verify(stockBucketRepository).deleteByItemId(2L);
+        verify(itemRepository).incrementStock(2L, 7);
+        verify(itemCache).evictStock(2L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void inlineTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void split(Long itemId) {
+        ((Set<Long>) ReflectionTestUtils.getField(splitter, "splitItems")).add(itemId);
+    }
+}
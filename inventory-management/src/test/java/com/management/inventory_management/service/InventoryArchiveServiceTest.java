@@ -0,0 +1,130 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.InventoryDTO;
+import com.management.inventory_management.model.Inventory;
+import com.management.inventory_management.model.InventoryType;
+import com.management.inventory_management.model.StockSnapshot;
+import com.management.inventory_management.repository.InventoryRepository;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryArchiveServiceTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime MARCH = LocalDateTime.of(2023, 3, 1, 0, 0);
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @InjectMocks
+    private InventoryArchiveService archiveService;
+
+    @Test
+    void archiveChunk_FoldsMonthIntoLastRow() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.empty());
+        when(inventoryRepository.findRowsToArchive(1L, CUTOFF, Limit.of(100))).thenReturn(List.of(
+                row(10L, 5, InventoryType.T, MARCH.plusDays(1)),
+                row(11L, 8, InventoryType.W, MARCH.plusDays(2)),
+                row(12L, 4, InventoryType.T, MARCH.plusDays(3))));
+        when(inventoryRepository.findCarryForwardRow(eq(1L), eq(MARCH), eq(MARCH.plusMonths(1)), anyLong(), anyLong()))
+                .thenReturn(Optional.empty());
+        Inventory kept = entity(12L, 4, InventoryType.T, null);
+        when(inventoryRepository.findById(12L)).thenReturn(Optional.of(kept));
+
+        assertThat(archiveService.archiveChunk(1L, CUTOFF, 100)).isEqualTo(3);
+
+        verify(inventoryRepository).copyToArchive(eq(List.of(10L, 11L, 12L)), any());
+        verify(inventoryRepository).deleteByIdIn(List.of(10L, 11L));
+        assertThat(kept.getQty()).isEqualTo(1);
+        assertThat(kept.getType()).isEqualTo(InventoryType.T);
+        assertThat(kept.getArchivedRows()).isEqualTo(3);
+    }
+
+    @Test
+    void archiveChunk_AddsToExistingCarryForwardRow() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.empty());
+        when(inventoryRepository.findRowsToArchive(1L, CUTOFF, Limit.of(100))).thenReturn(List.of(
+                row(20L, 6, InventoryType.W, MARCH.plusDays(5))));
+        Inventory carry = entity(12L, 1, InventoryType.T, 3);
+        when(inventoryRepository.findCarryForwardRow(1L, MARCH, MARCH.plusMonths(1), 0L, Long.MAX_VALUE))
+                .thenReturn(Optional.of(carry));
+
+        archiveService.archiveChunk(1L, CUTOFF, 100);
+
+        verify(inventoryRepository).deleteByIdIn(List.of(20L));
+        verify(inventoryRepository, never()).findById(anyLong());
+        assertThat(carry.getQty()).isEqualTo(5);
+        assertThat(carry.getType()).isEqualTo(InventoryType.W);
+        assertThat(carry.getArchivedRows()).isEqualTo(4);
+    }
+
+    @Test
+    void archiveChunk_KeepsSnapshotCheckpointBoundary() {
+        StockSnapshot snapshot = new StockSnapshot();
+        snapshot.setItemId(1L);
+        snapshot.setLastInventoryId(11L);
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.of(snapshot));
+        when(inventoryRepository.findRowsToArchive(1L, CUTOFF, Limit.of(100))).thenReturn(List.of(
+                row(10L, 5, InventoryType.T, MARCH.plusDays(1)),
+                row(11L, 2, InventoryType.T, MARCH.plusDays(2)),
+                row(12L, 4, InventoryType.T, MARCH.plusDays(3))));
+        when(inventoryRepository.findCarryForwardRow(eq(1L), eq(MARCH), eq(MARCH.plusMonths(1)), anyLong(), anyLong()))
+                .thenReturn(Optional.empty());
+        Inventory covered = entity(11L, 2, InventoryType.T, null);
+        Inventory uncovered = entity(12L, 4, InventoryType.T, null);
+        when(inventoryRepository.findById(11L)).thenReturn(Optional.of(covered));
+        when(inventoryRepository.findById(12L)).thenReturn(Optional.of(uncovered));
+
+        archiveService.archiveChunk(1L, CUTOFF, 100);
+
+        // Rows up to the checkpoint fold into a row the snapshot still covers, the rest into one it does not
+        verify(inventoryRepository).findCarryForwardRow(1L, MARCH, MARCH.plusMonths(1), Long.MIN_VALUE, 11L);
+        verify(inventoryRepository).findCarryForwardRow(1L, MARCH, MARCH.plusMonths(1), 11L, Long.MAX_VALUE);
+        verify(inventoryRepository).deleteByIdIn(List.of(10L));
+        assertThat(covered.getQty()).isEqualTo(7);
+        assertThat(uncovered.getQty()).isEqualTo(4);
+        assertThat(uncovered.getArchivedRows()).isEqualTo(1);
+    }
+
+    @Test
+    void archiveChunk_NothingToArchive() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.empty());
+        when(inventoryRepository.findRowsToArchive(1L, CUTOFF, Limit.of(100))).thenReturn(List.of());
+
+        assertThat(archiveService.archiveChunk(1L, CUTOFF, 100)).isZero();
+        verify(inventoryRepository, never()).copyToArchive(anyCollection(), any());
+    }
+
+    private static InventoryDTO row(Long id, int qty, InventoryType type, LocalDateTime date) {
+        return new InventoryDTO(id, 1L, qty, type, date);
+    }
+
+    private static Inventory entity(Long id, int qty, InventoryType type, Integer archivedRows) {
+        Inventory inventory = new Inventory();
+        inventory.setId(id);
+        inventory.setQty(qty);
+        inventory.setType(type);
+        inventory.setArchivedRows(archivedRows);
+        return inventory;
+    }
+}
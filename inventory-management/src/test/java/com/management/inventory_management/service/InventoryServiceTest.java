@@ -1,5 +1,8 @@
 package com.management.inventory_management.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.inventory_management.dto.CursorPageResponseDTO;
+import com.management.inventory_management.dto.InventoryBatchResponseDTO;
 import com.management.inventory_management.dto.InventoryDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
 import com.management.inventory_management.exception.InsufficientStockException;
@@ -8,23 +11,35 @@ import com.management.inventory_management.model.InventoryType;
 import com.management.inventory_management.model.Item;
 import com.management.inventory_management.repository.InventoryRepository;
 import com.management.inventory_management.repository.ItemRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +54,19 @@ public class InventoryServiceTest {
     @Mock
     private StockService stockService;
 
+    @Mock
+    private StockSnapshotService stockSnapshotService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    // Unsharded: every query runs inline
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -67,20 +95,21 @@ public class InventoryServiceTest {
 
     @Test
     void createInventory_TopUp_Success() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(entityManager.getReference(Item.class, 1L)).thenReturn(testItem);
         when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
 
         InventoryDTO result = inventoryService.createInventory(testInventoryDTO);
 
         assertThat(result).isNotNull();
         verify(stockService).updateStock(eq(1L), eq(10), eq(true));
+        verify(stockSnapshotService).recordLedgerChange(1L, 1L, 10);
+        verify(itemRepository, never()).findById(any());
     }
 
     @Test
     void createInventory_Withdrawal_Success() {
         testInventoryDTO.setType(InventoryType.W);
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(stockService.getCurrentStock(1L)).thenReturn(20);
+        when(entityManager.getReference(Item.class, 1L)).thenReturn(testItem);
         when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
 
         InventoryDTO result = inventoryService.createInventory(testInventoryDTO);
@@ -92,23 +121,42 @@ public class InventoryServiceTest {
     @Test
     void createInventory_Withdrawal_InsufficientStock() {
         testInventoryDTO.setType(InventoryType.W);
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(stockService.getCurrentStock(1L)).thenReturn(5);
+        doThrow(new InsufficientStockException("Stok tidak mencukupi"))
+                .when(stockService).updateStock(1L, 10, false);
 
         assertThrows(InsufficientStockException.class,
                 () -> inventoryService.createInventory(testInventoryDTO));
+        verify(inventoryRepository, never()).save(any(Inventory.class));
     }
 
     @Test
     void getAllInventory_Success() {
-        Page<Inventory> page = new PageImpl<>(Arrays.asList(testInventory));
-        when(inventoryRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        Page<InventoryDTO> page = new PageImpl<>(Arrays.asList(testInventoryDTO));
+        when(inventoryRepository.findDtoPage(any(PageRequest.class))).thenReturn(page);
 
         PageResponseDTO<InventoryDTO> result = inventoryService.getAllInventory(0, 10);
 
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getTotalElements()).isEqualTo(1);
+        verify(inventoryRepository, never()).findAll(any(PageRequest.class));
+    }
+
+    @Test
+    void getInventory_Success() {
+        when(inventoryRepository.findDtoById(1L)).thenReturn(Optional.of(testInventoryDTO));
+
+        InventoryDTO result = inventoryService.getInventory(1L);
+
+        assertThat(result.getItemId()).isEqualTo(1L);
+        verify(inventoryRepository, never()).findById(any());
+    }
+
+    @Test
+    void getInventory_NotFound() {
+        when(inventoryRepository.findDtoById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> inventoryService.getInventory(1L));
     }
 
     @Test
@@ -125,15 +173,15 @@ public class InventoryServiceTest {
         InventoryDTO result = inventoryService.updateInventory(1L, updateDTO);
 
         assertThat(result).isNotNull();
-        verify(stockService).updateStock(eq(1L), eq(10), eq(false)); // Reverse original
-        verify(stockService).updateStock(eq(1L), eq(15), eq(true));  // Apply new
+        verify(stockService).applyStockDelta(1L, 5); // Net of reversing 10 and applying 15
     }
 
     @Test
     void updateInventory_WithdrawalInsufficientStock() {
         when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
         when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(stockService.getCurrentStock(1L)).thenReturn(5);
+        doThrow(new InsufficientStockException("Stok tidak mencukupi"))
+                .when(stockService).applyStockDelta(1L, -20);
 
         InventoryDTO updateDTO = new InventoryDTO();
         updateDTO.setItemId(1L);
@@ -151,6 +199,7 @@ public class InventoryServiceTest {
         inventoryService.deleteInventory(1L);
 
         verify(stockService).updateStock(eq(1L), eq(10), eq(false)); // Reverse the operation
+        verify(stockSnapshotService).recordLedgerChange(1L, 1L, -10);
         verify(inventoryRepository).delete(testInventory);
     }
 
@@ -165,4 +214,109 @@ public class InventoryServiceTest {
         verify(inventoryRepository).delete(testInventory);
     }
 
+    @Test
+    void createInventoryBatch_AppliesNetStockPerItem() {
+        InventoryDTO withdrawal = new InventoryDTO();
+        withdrawal.setItemId(1L);
+        withdrawal.setQty(4);
+        withdrawal.setType(InventoryType.W);
+        InventoryDTO otherItem = new InventoryDTO();
+        otherItem.setItemId(2L);
+        otherItem.setQty(3);
+        otherItem.setType(InventoryType.T);
+        when(itemRepository.findExistingIds(any())).thenReturn(List.of(1L, 2L));
+
+        InventoryBatchResponseDTO result = inventoryService.createInventoryBatch(
+                List.of(testInventoryDTO, withdrawal, otherItem));
+
+        assertThat(result.getProcessedRows()).isEqualTo(3);
+        assertThat(result.getItemsAffected()).isEqualTo(2);
+        verify(stockService).applyStockDelta(1L, 6);
+        verify(stockService).applyStockDelta(2L, 3);
+        verify(entityManager, times(3)).persist(any(Inventory.class));
+        verify(entityManager).flush();
+    }
+
+    @Test
+    void createInventoryBatch_InvalidRow_NothingWritten() {
+        InventoryDTO invalid = new InventoryDTO();
+        invalid.setItemId(1L);
+        invalid.setQty(0);
+        invalid.setType(InventoryType.T);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.createInventoryBatch(List.of(testInventoryDTO, invalid)));
+        verifyNoInteractions(entityManager, stockService);
+    }
+
+    @Test
+    void createInventoryBatch_ItemNotFound() {
+        when(itemRepository.findExistingIds(any())).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> inventoryService.createInventoryBatch(List.of(testInventoryDTO)));
+        verifyNoInteractions(entityManager, stockService);
+    }
+
+    @Test
+    void exportInventory_Csv() throws Exception {
+        LocalDateTime date = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        TypedQuery<InventoryDTO> query = exportQuery(Stream.of(
+                new InventoryDTO(1L, 1L, 10, InventoryType.T, date),
+                new InventoryDTO(2L, 1L, 4, InventoryType.W, date)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        inventoryService.exportInventory(1L, null, null, DataFormat.CSV, out);
+
+        // Only the item filter, no "IS NULL OR" predicate that would keep the index out
+        verify(entityManager).createQuery(
+                InventoryRepository.SELECT_DTO + "WHERE i.item.id = :itemId ORDER BY i.id", InventoryDTO.class);
+        verify(query).setParameter("itemId", 1L);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,itemId,qty,type,transactionDate\n" +
+                "1,1,10,T,2024-01-02T03:04:05\n" +
+                "2,1,4,W,2024-01-02T03:04:05\n");
+    }
+
+    @Test
+    void exportInventory_Ndjson() throws Exception {
+        exportQuery(Stream.of(new InventoryDTO(1L, 1L, 10, InventoryType.T, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        inventoryService.exportInventory(null, null, null, DataFormat.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).hasSize(1);
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"itemId\":1", "\"type\":\"T\"");
+    }
+
+    @Test
+    void getInventoryAfter_SeeksPastTransactionDateAndId() {
+        LocalDateTime date = testInventory.getTransactionDate();
+        InventoryDTO firstRow = new InventoryDTO(1L, 1L, 10, InventoryType.T, date);
+        InventoryDTO second = new InventoryDTO(2L, 1L, 5, InventoryType.W, date);
+        when(inventoryRepository.findFirstPage(Limit.of(2))).thenReturn(List.of(firstRow, second));
+
+        CursorPageResponseDTO<InventoryDTO> first = inventoryService.getInventoryAfter(null, 1, false);
+
+        assertThat(first.getContent()).extracting(InventoryDTO::getId).containsExactly(1L);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        when(inventoryRepository.findPageAfter(date, 1L, Limit.of(2)))
+                .thenReturn(List.of(second));
+
+        CursorPageResponseDTO<InventoryDTO> next = inventoryService.getInventoryAfter(first.getNextCursor(), 1, false);
+
+        assertThat(next.getContent()).extracting(InventoryDTO::getId).containsExactly(2L);
+        assertThat(next.isLast()).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypedQuery<InventoryDTO> exportQuery(Stream<InventoryDTO> rows) {
+        ReflectionTestUtils.setField(inventoryService, "exportFetchSize", 1000);
+        TypedQuery<InventoryDTO> query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(InventoryDTO.class))).thenReturn(query);
+        when(query.getResultStream()).thenReturn(rows);
+        return query;
+    }
 }
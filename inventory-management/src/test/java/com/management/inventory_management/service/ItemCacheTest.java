@@ -0,0 +1,87 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.model.Item;
+import com.management.inventory_management.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemCacheTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemCache itemCache;
+
+    private Item testItem;
+
+    @BeforeEach
+    void setUp() {
+        itemCache.init();
+
+        testItem = new Item();
+        testItem.setId(1L);
+        testItem.setName("Test Item");
+        testItem.setPrice(100.0);
+        testItem.setCurrentStock(10);
+    }
+
+    @Test
+    void findWithStock_RepeatedReads_LoadOnce() {
+        when(itemRepository.findForCache(1L)).thenReturn(Optional.of(testItem));
+
+        itemCache.findWithStock(1L);
+        ItemCache.CachedItem cached = itemCache.findWithStock(1L).orElseThrow();
+
+        assertThat(cached.currentStock()).isEqualTo(10);
+        verify(itemRepository, times(1)).findForCache(1L);
+        assertThat(itemCache.stats().getHitCount()).isEqualTo(1);
+        assertThat(itemCache.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictStock_KeepsCatalogFields_ReloadsOnlyStock() {
+        when(itemRepository.findForCache(1L)).thenReturn(Optional.of(testItem));
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(7));
+        itemCache.findWithStock(1L);
+
+        itemCache.evictStock(1L);
+
+        assertThat(itemCache.find(1L).orElseThrow().currentStock()).isNull();
+        assertThat(itemCache.findWithStock(1L).orElseThrow().currentStock()).isEqualTo(7);
+        assertThat(itemCache.findWithStock(1L).orElseThrow().name()).isEqualTo("Test Item");
+        verify(itemRepository, times(1)).findForCache(1L);
+        verify(itemRepository, times(1)).findCurrentStockById(1L);
+    }
+
+    @Test
+    void evict_ReloadsWholeItem() {
+        when(itemRepository.findForCache(1L)).thenReturn(Optional.of(testItem));
+        itemCache.find(1L);
+
+        itemCache.evict(1L);
+        itemCache.find(1L);
+
+        verify(itemRepository, times(2)).findForCache(1L);
+    }
+
+    @Test
+    void find_MissingItem_NotCached() {
+        when(itemRepository.findForCache(1L)).thenReturn(Optional.empty());
+
+        assertThat(itemCache.find(1L)).isEmpty();
+        assertThat(itemCache.find(1L)).isEmpty();
+
+        verify(itemRepository, times(2)).findForCache(1L);
+    }
+}
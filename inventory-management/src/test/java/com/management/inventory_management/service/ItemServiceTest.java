@@ -1,6 +1,8 @@
 package com.management.inventory_management.service;
 
+import com.management.inventory_management.dto.CursorPageResponseDTO;
 import com.management.inventory_management.dto.ItemDTO;
+import com.management.inventory_management.dto.ItemStockDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
 import com.management.inventory_management.model.Item;
 import com.management.inventory_management.repository.ItemRepository;
@@ -10,17 +12,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +39,13 @@ public class ItemServiceTest {
     @Mock
     private StockService stockService;
 
+    @Mock
+    private ItemCache itemCache;
+
+    // Unsharded: every query runs inline
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
     @InjectMocks
     private ItemService itemService;
 
@@ -65,18 +79,19 @@ public class ItemServiceTest {
 
     @Test
     void getItem_Success() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(itemCache.findWithStock(1L)).thenReturn(Optional.of(new ItemCache.CachedItem(1L, "Test Item", 100.0, 10)));
 
         ItemDTO result = itemService.getItem(1L);
 
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(testItem.getId());
         assertThat(result.getCurrentStock()).isEqualTo(10);
+        verify(itemRepository, never()).findById(any());
     }
 
     @Test
     void getItem_NotFound() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(itemCache.findWithStock(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> itemService.getItem(1L));
     }
@@ -103,6 +118,7 @@ public class ItemServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getName()).isEqualTo(testItemDTO.getName());
         verify(itemRepository).save(any(Item.class));
+        verify(itemCache).evict(1L);
     }
 
     @Test
@@ -113,6 +129,7 @@ public class ItemServiceTest {
         itemService.deleteItem(1L);
 
         verify(itemRepository).delete(testItem);
+        verify(itemCache).evict(1L);
     }
 
     @Test
@@ -124,4 +141,79 @@ public class ItemServiceTest {
 
         verify(itemRepository, never()).delete(any(Item.class));
     }
+
+    @Test
+    void getItemsAfter_FirstPage_ReturnsCursorToNextPage() {
+        Item second = new Item();
+        second.setId(2L);
+        when(itemRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(2)))
+                .thenReturn(List.of(testItem, second));
+
+        CursorPageResponseDTO<ItemDTO> first = itemService.getItemsAfter(null, 1, false);
+
+        assertThat(first.getContent()).extracting(ItemDTO::getId).containsExactly(1L);
+        assertThat(first.isLast()).isFalse();
+        assertThat(first.getTotalElements()).isNull();
+
+        when(itemRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(2))).thenReturn(List.of(second));
+        when(itemRepository.count()).thenReturn(2L);
+
+        CursorPageResponseDTO<ItemDTO> next = itemService.getItemsAfter(first.getNextCursor(), 1, true);
+
+        assertThat(next.getContent()).extracting(ItemDTO::getId).containsExactly(2L);
+        assertThat(next.isLast()).isTrue();
+        assertThat(next.getNextCursor()).isNull();
+        assertThat(next.getTotalElements()).isEqualTo(2L);
+    }
+
+    @Test
+    void getItemsAfter_InvalidCursor_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> itemService.getItemsAfter("not a cursor!", 10, false));
+        assertThrows(IllegalArgumentException.class, () -> itemService.getItemsAfter(null, 0, false));
+
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void getStock_KeepsRequestOrderAndSkipsUnknownIds() {
+        when(itemRepository.findStockByIdIn(List.of(3L, 1L, 2L))).thenReturn(List.of(stock(1L, 10), stock(3L, 0)));
+
+        List<ItemStockDTO> result = itemService.getStock(List.of(3L, 1L, 2L, 3L));
+
+        assertThat(result).containsExactly(new ItemStockDTO(3L, 0), new ItemStockDTO(1L, 10));
+    }
+
+    @Test
+    void getStock_LongIdList_QueriedInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 2 * ItemService.STOCK_LOOKUP_CHUNK + 1).boxed().toList();
+        when(itemRepository.findStockByIdIn(anyCollection())).thenReturn(List.of());
+
+        itemService.getStock(ids);
+
+        verify(itemRepository, times(3)).findStockByIdIn(anyCollection());
+    }
+
+    @Test
+    void getStock_InvalidIds_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> itemService.getStock(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> itemService.getStock(Arrays.asList(1L, null)));
+        assertThrows(IllegalArgumentException.class, () -> itemService.getStock(
+                LongStream.rangeClosed(1, ItemService.MAX_STOCK_LOOKUP_IDS + 1).boxed().toList()));
+
+        verifyNoInteractions(itemRepository);
+    }
+
+    private static ItemRepository.ItemStock stock(Long id, Integer currentStock) {
+        return new ItemRepository.ItemStock() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getCurrentStock() {
+                return currentStock;
+            }
+        };
+    }
 }
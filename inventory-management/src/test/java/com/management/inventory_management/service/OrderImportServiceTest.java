@@ -0,0 +1,161 @@
+package com.management.inventory_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.inventory_management.dto.OrderImportResultDTO;
+import com.management.inventory_management.model.Order;
+import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OrderImportServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    // Unsharded: every query runs inline
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
+    @InjectMocks
+    private OrderImportService orderImportService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(orderRepository.findExistingOrderNos(any())).thenReturn(List.of(2L));
+        when(itemRepository.findExistingIds(any())).thenReturn(List.of(1L));
+        when(stockService.tryWithdraw(1L, 2)).thenReturn(true);
+        when(stockService.tryWithdraw(1L, 99)).thenReturn(false);
+    }
+
+    @Test
+    void importOrders_Ndjson_ReportsEveryLine() throws Exception {
+        String body = """
+                {"orderNo":1,"itemId":1,"qty":2,"price":10.0}
+                {"orderNo":2,"itemId":1,"qty":2,"price":10.0}
+                {"orderNo":3,"itemId":1,"qty":99,"price":10.0}
+                {"orderNo":4,"itemId":7,"qty":1,"price":10.0}
+                {"orderNo":1,"itemId":1,"qty":2,"price":10.0}
+                not json
+                """;
+
+        List<OrderImportResultDTO> results = runImport(body, DataFormat.NDJSON);
+
+        assertThat(results).extracting(OrderImportResultDTO::getStatus).containsExactly(
+                OrderImportResultDTO.Status.ACCEPTED,
+                OrderImportResultDTO.Status.DUPLICATE,
+                OrderImportResultDTO.Status.INSUFFICIENT_STOCK,
+                OrderImportResultDTO.Status.ITEM_NOT_FOUND,
+                OrderImportResultDTO.Status.DUPLICATE,
+                OrderImportResultDTO.Status.INVALID);
+        verify(entityManager, times(1)).persist(any(Order.class));
+    }
+
+    @Test
+    void importOrders_Csv_CommitsInChunks() throws Exception {
+        ReflectionTestUtils.setField(orderImportService, "chunkSize", 1);
+        String body = """
+                orderNo,itemId,qty,price
+                1,1,2,10.0
+                5,1,2,10.0
+                """;
+
+        List<OrderImportResultDTO> results = runImport(body, DataFormat.CSV);
+
+        assertThat(results).extracting(OrderImportResultDTO::getLine).containsExactly(2L, 3L);
+        assertThat(results).allMatch(result -> result.getStatus() == OrderImportResultDTO.Status.ACCEPTED);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void importOrders_ClearsPersistenceContextAfterEveryChunk() throws Exception {
+        ReflectionTestUtils.setField(orderImportService, "chunkSize", 1);
+        String body = """
+                {"orderNo":1,"itemId":1,"qty":2,"price":10.0}
+                {"orderNo":5,"itemId":1,"qty":2,"price":10.0}
+                """;
+
+        runImport(body, DataFormat.NDJSON);
+
+        InOrder inOrder = inOrder(entityManager);
+        for (int chunk = 0; chunk < 2; chunk++) {
+            inOrder.verify(entityManager, calls(2)).persist(any());
+            inOrder.verify(entityManager).flush();
+            inOrder.verify(entityManager).clear();
+        }
+    }
+
+    @Test
+    void importOrders_FailedChunk_ReportsLinesAsFailed() throws Exception {
+        doThrow(new IllegalStateException("db down")).when(transactionTemplate).execute(any());
+
+        List<OrderImportResultDTO> results = runImport(
+                "{\"orderNo\":1,\"itemId\":1,\"qty\":2,\"price\":10.0}\n", DataFormat.NDJSON);
+
+        assertThat(results).extracting(OrderImportResultDTO::getStatus)
+                .containsExactly(OrderImportResultDTO.Status.FAILED);
+    }
+
+    @Test
+    void importOrders_CsvWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> runImport("orderNo,qty\n1,2\n", DataFormat.CSV));
+    }
+
+    private List<OrderImportResultDTO> runImport(String body, DataFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderImportService.importOrders(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, out);
+        return Arrays.stream(out.toString(StandardCharsets.UTF_8).split("\n"))
+                .filter(line -> !line.isBlank())
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, OrderImportResultDTO.class);
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                })
+                .toList();
+    }
+}
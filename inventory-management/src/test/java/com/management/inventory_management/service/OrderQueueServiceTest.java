@@ -0,0 +1,246 @@
+package com.management.inventory_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.dto.OrderLineDTO;
+import com.management.inventory_management.dto.OrderTicketDTO;
+import com.management.inventory_management.exception.InsufficientStockException;
+import com.management.inventory_management.model.OrderTicket;
+import com.management.inventory_management.model.OrderTicketStatus;
+import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.OrderRepository;
+import com.management.inventory_management.repository.OrderTicketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderQueueServiceTest {
+
+    @Mock
+    private OrderTicketRepository orderTicketRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OrderQueueService orderQueueService;
+
+    @Test
+    void enqueue_StoresPendingTicketForLowestItem() {
+        when(itemRepository.findExistingIds(any())).thenReturn(List.of(3L, 5L));
+        when(orderTicketRepository.save(any(OrderTicket.class))).thenAnswer(invocation -> {
+            OrderTicket ticket = invocation.getArgument(0);
+            ticket.setId(7L);
+            return ticket;
+        });
+        OrderDTO order = new OrderDTO();
+        order.setOrderNo(100L);
+        order.setLines(List.of(line(5L, 1), line(3L, 2)));
+
+        OrderTicketDTO result = orderQueueService.enqueue(order);
+
+        ArgumentCaptor<OrderTicket> saved = ArgumentCaptor.forClass(OrderTicket.class);
+        verify(orderTicketRepository).save(saved.capture());
+        assertThat(saved.getValue().getItemId()).isEqualTo(3L);
+        assertThat(saved.getValue().getStatus()).isEqualTo(OrderTicketStatus.PENDING);
+        assertThat(result.getTicketId()).isEqualTo(7L);
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void enqueue_InvalidLine_Rejected() {
+        OrderDTO order = new OrderDTO();
+        order.setOrderNo(100L);
+        order.setLines(List.of(line(3L, 0)));
+
+        assertThrows(IllegalArgumentException.class, () -> orderQueueService.enqueue(order));
+        verify(orderTicketRepository, never()).save(any());
+    }
+
+    @Test
+    void enqueue_ExistingOrderNo_Rejected() {
+        when(orderRepository.existsById(100L)).thenReturn(true);
+        OrderDTO order = new OrderDTO();
+        order.setOrderNo(100L);
+        order.setLines(List.of(line(3L, 1)));
+
+        assertThrows(IllegalStateException.class, () -> orderQueueService.enqueue(order));
+        verify(orderTicketRepository, never()).save(any());
+    }
+
+    @Test
+    void enqueue_OpenTicketForOrderNo_Rejected() {
+        when(orderTicketRepository.existsByOrderNoAndStatusIn(eq(100L), any())).thenReturn(true);
+        OrderDTO order = new OrderDTO();
+        order.setOrderNo(100L);
+        order.setLines(List.of(line(3L, 1)));
+
+        assertThrows(IllegalStateException.class, () -> orderQueueService.enqueue(order));
+        verify(orderTicketRepository, never()).save(any());
+    }
+
+    @Test
+    void enqueue_UnknownItem_Rejected() {
+        when(itemRepository.findExistingIds(any())).thenReturn(List.of(3L));
+        OrderDTO order = new OrderDTO();
+        order.setOrderNo(100L);
+        order.setLines(List.of(line(3L, 1), line(9L, 1)));
+
+        EntityNotFoundException ex = assertThrows(EntityNotFoundException.class, () -> orderQueueService.enqueue(order));
+        assertThat(ex.getMessage()).contains("9");
+        verify(orderTicketRepository, never()).save(any());
+    }
+
+    @Test
+    void processGroup_CreatesAllOrdersInOneTransaction() throws Exception {
+        inlineTransactions();
+
+        orderQueueService.processGroup(List.of(ticket(1L, 100L), ticket(2L, 101L)));
+
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(orderService, times(2)).createOrder(any(OrderDTO.class));
+        verify(orderTicketRepository).finish(eq(1L), any(), eq(OrderTicketStatus.PROCESSING), eq(OrderTicketStatus.DONE), eq(null), any());
+        verify(orderTicketRepository).finish(eq(2L), any(), eq(OrderTicketStatus.PROCESSING), eq(OrderTicketStatus.DONE), eq(null), any());
+    }
+
+    @Test
+    void processGroup_OneOrderRejected_OthersStillStored() throws Exception {
+        inlineTransactions();
+        when(orderService.createOrder(any(OrderDTO.class))).thenAnswer(invocation -> {
+            if (invocation.<OrderDTO>getArgument(0).getOrderNo() == 101L) {
+                throw new InsufficientStockException("Stok barang tidak mencukupi");
+            }
+            return null;
+        });
+
+        orderQueueService.processGroup(List.of(ticket(1L, 100L), ticket(2L, 101L)));
+
+        // Both in the group, then each on its own
+        verify(orderService, times(4)).createOrder(any(OrderDTO.class));
+        verify(orderTicketRepository, times(2)).finish(eq(1L), any(), eq(OrderTicketStatus.PROCESSING), eq(OrderTicketStatus.DONE), eq(null), any());
+        verify(orderTicketRepository).finish(eq(2L), any(), eq(OrderTicketStatus.PROCESSING), eq(OrderTicketStatus.FAILED), eq("Stok barang tidak mencukupi"), any());
+    }
+
+    @Test
+    void processGroup_DatabaseError_TicketBackInQueue() throws Exception {
+        inlineTransactions();
+        when(orderService.createOrder(any(OrderDTO.class))).thenThrow(new QueryTimeoutException("timeout"));
+
+        orderQueueService.processGroup(List.of(ticket(1L, 100L)));
+
+        verify(orderTicketRepository).release(eq(1L), any(), eq(OrderTicketStatus.PROCESSING), eq(OrderTicketStatus.PENDING));
+        verify(orderTicketRepository, never()).finish(eq(1L), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void processGroup_DatabaseErrorOnLastAttempt_TicketFailed() throws Exception {
+        inlineTransactions();
+        when(orderService.createOrder(any(OrderDTO.class))).thenThrow(new QueryTimeoutException("timeout"));
+        OrderTicket ticket = ticket(1L, 100L);
+        ticket.setAttempts(5);
+
+        orderQueueService.processGroup(List.of(ticket));
+
+        verify(orderTicketRepository).finish(eq(1L), any(), eq(OrderTicketStatus.PROCESSING), eq(OrderTicketStatus.FAILED), anyString(), any());
+        verify(orderTicketRepository, never()).release(any(), any(), any(), any());
+    }
+
+    @Test
+    void processGroup_ClaimLost_OrderRolledBackAndTicketLeftAlone() throws Exception {
+        inlineTransactions();
+        when(orderTicketRepository.finish(eq(1L), any(), any(), any(), any(), any())).thenReturn(0);
+
+        orderQueueService.processGroup(List.of(ticket(1L, 100L)));
+
+        // Thrown inside the order's transaction so the order is not stored twice
+        verify(orderService).createOrder(any(OrderDTO.class));
+        verify(orderTicketRepository, times(1)).finish(any(), any(), any(), any(), any(), any());
+        verify(orderTicketRepository, never()).release(any(), any(), any(), any());
+    }
+
+    @Test
+    void processGroup_ClaimLostBeforeFailure_ProcessedTicketLeftAlone() throws Exception {
+        inlineTransactions();
+        when(orderService.createOrder(any(OrderDTO.class))).thenThrow(new InsufficientStockException("Stok barang tidak mencukupi"));
+        when(orderTicketRepository.finish(eq(1L), any(), any(), eq(OrderTicketStatus.FAILED), any(), any())).thenReturn(0);
+
+        orderQueueService.processGroup(List.of(ticket(1L, 100L)));
+
+        assertThat(meterRegistry.find("inventory.order-queue.processed").counter()).isNull();
+    }
+
+    // Runs every transaction inline, and this worker still holds every ticket
+    @SuppressWarnings("unchecked")
+    private void inlineTransactions() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(orderTicketRepository.finish(any(), any(), any(), any(), any(), any())).thenReturn(1);
+        lenient().when(orderTicketRepository.release(any(), any(), any(), any())).thenReturn(1);
+    }
+
+    private OrderTicket ticket(Long id, Long orderNo) throws Exception {
+        OrderDTO order = new OrderDTO();
+        order.setOrderNo(orderNo);
+        order.setItemId(3L);
+        order.setQty(1);
+        order.setPrice(10.0);
+        OrderTicket ticket = new OrderTicket();
+        ticket.setId(id);
+        ticket.setOrderNo(orderNo);
+        ticket.setItemId(3L);
+        ticket.setPayload(objectMapper.writeValueAsString(order));
+        ticket.setStatus(OrderTicketStatus.PROCESSING);
+        ticket.setAttempts(1);
+        ticket.setCreatedAt(LocalDateTime.now());
+        return ticket;
+    }
+
+    private static OrderLineDTO line(Long itemId, int qty) {
+        return new OrderLineDTO(null, null, itemId, qty, 10.0, null);
+    }
+}
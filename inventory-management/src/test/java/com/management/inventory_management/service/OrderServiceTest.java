@@ -1,29 +1,44 @@
 package com.management.inventory_management.service;
 
 
+import com.management.inventory_management.dto.CursorPageResponseDTO;
 import com.management.inventory_management.dto.OrderDTO;
+import com.management.inventory_management.dto.OrderLineDTO;
 import com.management.inventory_management.dto.PageResponseDTO;
 import com.management.inventory_management.exception.InsufficientStockException;
 import com.management.inventory_management.model.Item;
 import com.management.inventory_management.model.Order;
+import com.management.inventory_management.model.OrderLine;
 import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.OrderLineRepository;
 import com.management.inventory_management.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,12 +47,22 @@ public class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderLineRepository orderLineRepository;
+
     @Mock
     private ItemRepository itemRepository;
 
     @Mock
     private StockService stockService;
 
+    @Mock
+    private EntityManager entityManager;
+
+    // Unsharded: every query runs inline
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
     @InjectMocks
     private OrderService orderService;
 
@@ -54,9 +79,6 @@ public class OrderServiceTest {
 
         testOrder = new Order();
         testOrder.setOrderNo(001L);
-        testOrder.setItem(testItem);
-        testOrder.setQty(2);
-        testOrder.setPrice(100.0);
         testOrder.setTotalPrice(200.0);
 
         testOrderDTO = new OrderDTO();
@@ -69,44 +91,124 @@ public class OrderServiceTest {
     @Test
     void createOrder_Success() {
         when(orderRepository.existsById(001L)).thenReturn(false);
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(stockService.getCurrentStock(1L)).thenReturn(10);
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(itemRepository.getReferenceById(1L)).thenReturn(testItem);
 
         OrderDTO result = orderService.createOrder(testOrderDTO);
 
         assertThat(result).isNotNull();
         assertThat(result.getOrderNo()).isEqualTo(testOrderDTO.getOrderNo());
-        verify(stockService).updateStock(eq(1L), eq(2), eq(false));
+        assertThat(result.getItemId()).isEqualTo(1L);
+        assertThat(result.getTotalPrice()).isEqualTo(200.0);
+        assertThat(result.getLines()).hasSize(1);
+        verify(stockService).applyStockDeltas(Map.of(1L, -2));
+        verify(entityManager).persist(any(Order.class));
+        verify(entityManager).persist(any(OrderLine.class));
     }
 
     @Test
     void createOrder_InsufficientStock() {
         when(orderRepository.existsById(001L)).thenReturn(false);
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(stockService.getCurrentStock(1L)).thenReturn(1);
+        doThrow(new InsufficientStockException("Stok tidak mencukupi"))
+                .when(stockService).applyStockDeltas(Map.of(1L, -2));
 
         assertThrows(InsufficientStockException.class, () -> orderService.createOrder(testOrderDTO));
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void createOrder_MultipleLines_OneStockChangePerItem() {
+        Item otherItem = new Item();
+        otherItem.setId(2L);
+        when(orderRepository.existsById(001L)).thenReturn(false);
+        when(itemRepository.getReferenceById(1L)).thenReturn(testItem);
+        when(itemRepository.getReferenceById(2L)).thenReturn(otherItem);
+        OrderDTO multiLine = new OrderDTO();
+        multiLine.setOrderNo(001L);
+        multiLine.setLines(List.of(line(2L, 1, 50.0), line(1L, 2, 100.0), line(2L, 3, 50.0)));
+
+        OrderDTO result = orderService.createOrder(multiLine);
+
+        verify(stockService).applyStockDeltas(Map.of(1L, -2, 2L, -4));
+        verify(entityManager, times(3)).persist(any(OrderLine.class));
+        assertThat(result.getTotalPrice()).isEqualTo(400.0);
+        assertThat(result.getLines()).extracting(OrderLineDTO::getLineNo).containsExactly(1, 2, 3);
+        assertThat(result.getItemId()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrder_GroupCommit_WorkerStoresOrderWithStockChange() {
+        when(orderRepository.existsById(001L)).thenReturn(false);
+        when(itemRepository.getReferenceById(1L)).thenReturn(testItem);
+        when(stockService.isGroupCommit()).thenReturn(true);
+
+        OrderDTO result = orderService.createOrder(testOrderDTO);
+
+        ArgumentCaptor<Consumer<JdbcTemplate>> rows = ArgumentCaptor.forClass(Consumer.class);
+        verify(stockService).applyStockDelta(eq(1L), eq(-2), rows.capture());
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        rows.getValue().accept(jdbcTemplate);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO orders"), eq(1L), eq(200.0));
+        ArgumentCaptor<List<Object[]>> lines = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO order_lines"), lines.capture());
+        assertThat(lines.getValue()).containsExactly(new Object[]{1L, 1, 1L, 2, 100.0, 200.0});
+        verify(stockService, never()).applyStockDeltas(any());
+        verify(entityManager, never()).persist(any());
+        assertThat(result.getTotalPrice()).isEqualTo(200.0);
+    }
+
+    @Test
+    void createOrder_GroupCommit_DuplicateOrderNoRejected() {
+        when(orderRepository.existsById(001L)).thenReturn(false);
+        when(itemRepository.getReferenceById(1L)).thenReturn(testItem);
+        when(stockService.isGroupCommit()).thenReturn(true);
+        doThrow(new DuplicateKeyException("order_no")).when(stockService).applyStockDelta(eq(1L), eq(-2), any());
+
+        assertThrows(IllegalStateException.class, () -> orderService.createOrder(testOrderDTO));
+    }
+
+    @Test
+    void createOrder_LineWithoutQty_Rejected() {
+        OrderDTO multiLine = new OrderDTO();
+        multiLine.setOrderNo(001L);
+        multiLine.setLines(List.of(line(1L, 2, 100.0), line(2L, 0, 50.0)));
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(multiLine));
+        verifyNoInteractions(stockService);
     }
 
     @Test
     void getAllOrders_Success() {
-        Page<Order> page = new PageImpl<>(Arrays.asList(testOrder));
-        when(orderRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        Page<OrderDTO> page = new PageImpl<>(Arrays.asList(testOrderDTO));
+        when(orderRepository.findDtoPage(any(PageRequest.class))).thenReturn(page);
+        when(orderLineRepository.findDtoByOrderNoIn(List.of(001L))).thenReturn(List.of(line(1L, 2, 100.0)));
 
         PageResponseDTO<OrderDTO> result = orderService.getAllOrders(0, 10);
 
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getTotalElements()).isEqualTo(1);
+        verify(orderRepository, never()).findAll(any(PageRequest.class));
+    }
+
+    @Test
+    void getOrder_Success() {
+        when(orderRepository.findDtoByOrderNo(001L)).thenReturn(Optional.of(new OrderDTO(001L, 200.0)));
+        when(orderLineRepository.findDtoByOrderNoIn(List.of(001L))).thenReturn(List.of(line(1L, 2, 100.0)));
+
+        OrderDTO result = orderService.getOrder(001L);
+
+        assertThat(result.getItemId()).isEqualTo(1L);
+        assertThat(result.getQty()).isEqualTo(2);
+        assertThat(result.getLines()).hasSize(1);
+        verify(orderRepository, never()).findById(any());
     }
 
     @Test
     void updateOrder_Success() {
         when(orderRepository.findById(001L)).thenReturn(Optional.of(testOrder));
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(stockService.getCurrentStock(1L)).thenReturn(10);
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(orderLineRepository.findDtoByOrderNoIn(List.of(001L))).thenReturn(List.of(line(1L, 2, 100.0)));
+        when(itemRepository.getReferenceById(1L)).thenReturn(testItem);
 
         OrderDTO updateDTO = new OrderDTO();
         updateDTO.setQty(3);
@@ -115,17 +217,54 @@ public class OrderServiceTest {
 
         OrderDTO result = orderService.updateOrder(001L, updateDTO);
 
-        assertThat(result).isNotNull();
-        verify(stockService).updateStock(eq(1L), eq(1), eq(false)); // Difference of 1 unit
+        assertThat(result.getTotalPrice()).isEqualTo(300.0);
+        verify(stockService).applyStockDeltas(Map.of(1L, -1)); // Difference of 1 unit
+        verify(orderLineRepository).deleteByOrderNo(001L);
+    }
+
+    @Test
+    void updateOrder_ItemReplaced_ReturnsOldStockAndTakesNew() {
+        Item otherItem = new Item();
+        otherItem.setId(2L);
+        when(orderRepository.findById(001L)).thenReturn(Optional.of(testOrder));
+        when(orderLineRepository.findDtoByOrderNoIn(List.of(001L))).thenReturn(List.of(line(1L, 2, 100.0)));
+        when(itemRepository.getReferenceById(2L)).thenReturn(otherItem);
+
+        OrderDTO updateDTO = new OrderDTO();
+        updateDTO.setLines(List.of(line(2L, 5, 10.0)));
+
+        orderService.updateOrder(001L, updateDTO);
+
+        verify(stockService).applyStockDeltas(Map.of(1L, 2, 2L, -5));
     }
 
     @Test
     void deleteOrder_Success() {
         when(orderRepository.findById(001L)).thenReturn(Optional.of(testOrder));
+        when(orderLineRepository.findDtoByOrderNoIn(List.of(001L))).thenReturn(List.of(line(1L, 2, 100.0)));
 
         orderService.deleteOrder(001L);
 
-        verify(stockService).updateStock(eq(1L), eq(2), eq(true));
+        verify(stockService).applyStockDeltas(Map.of(1L, 2));
+        verify(orderLineRepository).deleteByOrderNo(001L);
         verify(orderRepository).delete(testOrder);
     }
+
+    @Test
+    void getOrdersAfter_LastPage_HasNoNextCursor() {
+        when(orderRepository.findPageAfter(Long.MIN_VALUE, Limit.of(11))).thenReturn(List.of(testOrderDTO));
+        when(orderLineRepository.findDtoByOrderNoIn(List.of(001L))).thenReturn(List.of(line(1L, 2, 100.0)));
+        when(orderRepository.count()).thenReturn(1L);
+
+        CursorPageResponseDTO<OrderDTO> result = orderService.getOrdersAfter(null, 10, true);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.isLast()).isTrue();
+        assertThat(result.getNextCursor()).isNull();
+        assertThat(result.getTotalElements()).isEqualTo(1L);
+    }
+
+    private static OrderLineDTO line(Long itemId, int qty, double price) {
+        return new OrderLineDTO(001L, null, itemId, qty, price, null);
+    }
 }
@@ -0,0 +1,119 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.ItemRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockEngineTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private StockEngine stockEngine;
+
+    @BeforeEach
+    void setUp() {
+        stockEngine.allocateCounters();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void tryWithdraw_Sync_WritesThrough() {
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(10));
+
+        boolean result = stockEngine.tryWithdraw(1L, 4);
+
+        assertThat(result).isTrue();
+        assertThat(stockEngine.getStock(1L)).isEqualTo(6);
+        verify(itemRepository).incrementStock(1L, -4);
+    }
+
+    @Test
+    void tryWithdraw_InsufficientStock() {
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(3));
+
+        boolean result = stockEngine.tryWithdraw(1L, 4);
+
+        assertThat(result).isFalse();
+        assertThat(stockEngine.getStock(1L)).isEqualTo(3);
+        verify(itemRepository, never()).incrementStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void tryWithdraw_ItemNotFound() {
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> stockEngine.tryWithdraw(1L, 1));
+    }
+
+    @Test
+    void writeBehind_FlushWritesNetDelta() {
+        ReflectionTestUtils.setField(stockEngine, "durability", StockEngine.Durability.WRITE_BEHIND);
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(10));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        stockEngine.add(1L, 5);
+        stockEngine.tryWithdraw(1L, 8);
+        verify(itemRepository, never()).incrementStock(anyLong(), anyInt());
+
+        stockEngine.flush();
+
+        verify(itemRepository).incrementStock(1L, -3);
+        assertThat(stockEngine.getStock(1L)).isEqualTo(7);
+    }
+
+    @Test
+    void rollback_RestoresCounter() {
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(10));
+        TransactionSynchronizationManager.initSynchronization();
+
+        stockEngine.tryWithdraw(1L, 4);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertThat(stockEngine.getStock(1L)).isEqualTo(10);
+    }
+
+    @Test
+    void evict_ReloadsFromDatabase() {
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(10), Optional.of(50));
+
+        stockEngine.getStock(1L);
+        stockEngine.evict(1L);
+
+        assertThat(stockEngine.getStock(1L)).isEqualTo(50);
+    }
+}
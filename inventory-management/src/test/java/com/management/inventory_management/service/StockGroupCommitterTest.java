@@ -0,0 +1,181 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.model.InventoryType;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockGroupCommitterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionTemplate sequenceTransaction;
+
+    @InjectMocks
+    private StockGroupCommitter groupCommitter;
+
+    @Test
+    void commit_SameItem_OneLockOneNetUpdateAndOneLedgerInsert() {
+        inlineTransactions();
+        lockReturns(1L, 5);
+        List<StockGroupCommitter.StockRequest> batch = List.of(
+                ledger(1L, 51L, InventoryType.W, 3),
+                ledger(1L, 52L, InventoryType.W, 3),
+                ledger(1L, 53L, InventoryType.T, 2),
+                ledger(1L, 54L, InventoryType.W, 4));
+
+        groupCommitter.commit(batch);
+
+        assertThat(batch).extracting(r -> r.result().join()).containsExactly(true, false, true, true);
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Integer.class), eq(1L));
+        verify(jdbcTemplate).update(anyString(), eq(-5), eq(1L));
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).extracting(row -> row[0]).containsExactly(51L, 53L, 54L);
+    }
+
+    @Test
+    void commit_UnknownItem_FailsOnlyThatItem() {
+        inlineTransactions();
+        lockReturns(1L);
+        lockReturns(2L, 10);
+        StockGroupCommitter.StockRequest missing = ledger(1L, 51L, InventoryType.T, 5);
+        StockGroupCommitter.StockRequest other = ledger(2L, 52L, InventoryType.W, 1);
+
+        groupCommitter.commit(List.of(missing, other));
+
+        assertThatThrownBy(() -> missing.result().join()).hasCauseInstanceOf(EntityNotFoundException.class);
+        assertThat(other.result().join()).isTrue();
+        verify(jdbcTemplate, never()).update(anyString(), anyInt(), eq(1L));
+    }
+
+    @Test
+    void commit_NoNetChange_SkipsUpdateButStoresRows() {
+        inlineTransactions();
+        lockReturns(1L, 5);
+
+        groupCommitter.commit(List.of(ledger(1L, 51L, InventoryType.W, 2), ledger(1L, 52L, InventoryType.T, 2)));
+
+        verify(jdbcTemplate, never()).update(anyString(), anyInt(), eq(1L));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void commit_AllRejected_NoLedgerRows() {
+        inlineTransactions();
+        lockReturns(1L, 1);
+        StockGroupCommitter.StockRequest rejected = ledger(1L, 51L, InventoryType.W, 2);
+
+        groupCommitter.commit(List.of(rejected));
+
+        assertThat(rejected.result().join()).isFalse();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void commit_CallerRows_WrittenOnlyForAcceptedRequests() {
+        TransactionStatus status = inlineTransactions();
+        lockReturns(1L, 3);
+        List<Integer> written = new ArrayList<>();
+        StockGroupCommitter.StockRequest first = rows(1L, -2, jdbc -> written.add(1));
+        StockGroupCommitter.StockRequest second = rows(1L, -2, jdbc -> written.add(2));
+
+        groupCommitter.commit(List.of(first, second));
+
+        assertThat(first.result().join()).isTrue();
+        assertThat(second.result().join()).isFalse();
+        assertThat(written).containsExactly(1);
+        verify(status).releaseSavepoint(any());
+        verify(jdbcTemplate).update(anyString(), eq(-2), eq(1L));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void commit_CallerRowsFail_OnlyThatRequestFailsAndItsChangeIsDropped() {
+        TransactionStatus status = inlineTransactions();
+        lockReturns(1L, 10);
+        StockGroupCommitter.StockRequest duplicate = rows(1L, -2, jdbc -> {
+            throw new DuplicateKeyException("order_no");
+        });
+        StockGroupCommitter.StockRequest other = rows(1L, -3, jdbc -> { });
+
+        groupCommitter.commit(List.of(duplicate, other));
+
+        assertThatThrownBy(() -> duplicate.result().join()).hasCauseInstanceOf(DuplicateKeyException.class);
+        assertThat(other.result().join()).isTrue();
+        verify(status).rollbackToSavepoint(any());
+        verify(jdbcTemplate).update(anyString(), eq(-3), eq(1L));
+    }
+
+    @Test
+    void ledgerRow_TakesIdsFromNextBlockWhenUsedUp() {
+        sequenceReturns(100L, 150L);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ids.add(groupCommitter.ledgerRow(InventoryType.T, 1, LocalDateTime.now()).id());
+        }
+
+        assertThat(ids).startsWith(51L).endsWith(110L);
+        verify(sequenceTransaction, times(2)).execute(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private TransactionStatus inlineTransactions() {
+        TransactionStatus status = mock(TransactionStatus.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(status);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        return status;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sequenceReturns(Long first, Long... next) {
+        when(sequenceTransaction.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        when(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR inventory_seq", Long.class)).thenReturn(first, next);
+    }
+
+    private void lockReturns(Long itemId, Integer... stock) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(itemId))).thenReturn(List.of(stock));
+    }
+
+    private static StockGroupCommitter.StockRequest ledger(Long itemId, long id, InventoryType type, int qty) {
+        StockGroupCommitter.LedgerRow row = new StockGroupCommitter.LedgerRow(id, type, qty, LocalDateTime.now());
+        return new StockGroupCommitter.StockRequest(itemId, row.delta(), row, null, new CompletableFuture<>());
+    }
+
+    private static StockGroupCommitter.StockRequest rows(Long itemId, int delta, Consumer<JdbcTemplate> rows) {
+        return new StockGroupCommitter.StockRequest(itemId, delta, null, rows, new CompletableFuture<>());
+    }
+}
@@ -0,0 +1,78 @@
+package com.management.inventory_management.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StockIndexTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void putGetAndRemove(boolean offHeap) {
+        StockIndex index = new StockIndex(100, offHeap);
+
+        assertThat(index.get(7L)).isEqualTo(StockIndex.ABSENT);
+        assertThat(index.putIfAbsent(7L, 10)).isEqualTo(10);
+        assertThat(index.putIfAbsent(7L, 99)).isEqualTo(10);
+        assertThat(index.addAndGet(7L, -4)).isEqualTo(6);
+        assertThat(index.compareAndSet(7L, 5, 1)).isFalse();
+        assertThat(index.compareAndSet(7L, 6, 1)).isTrue();
+
+        index.remove(7L);
+
+        assertThat(index.get(7L)).isEqualTo(StockIndex.ABSENT);
+        assertThat(index.addAndGet(7L, 1)).isEqualTo(StockIndex.ABSENT);
+        assertThat(index.putIfAbsent(7L, 3)).isEqualTo(3);
+        assertThat(index.keyCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void fillsToCapacity(boolean offHeap) {
+        StockIndex index = new StockIndex(1000, offHeap);
+        for (long id = 1; id <= 1000; id++) {
+            index.putIfAbsent(id * 1_000_003, (int) id);
+        }
+
+        for (long id = 1; id <= 1000; id++) {
+            assertThat(index.get(id * 1_000_003)).isEqualTo((int) id);
+        }
+        assertThrows(IllegalStateException.class, () -> index.putIfAbsent(1L, 1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void concurrentUpdates_NoLostWrites(boolean offHeap) throws Exception {
+        StockIndex index = new StockIndex(1000, offHeap);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(pool.submit(() -> {
+                    for (long id = 1; id <= 500; id++) {
+                        index.putIfAbsent(id, 0);
+                        index.addAndGet(id, 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(index.keyCount()).isEqualTo(500);
+        for (long id = 1; id <= 500; id++) {
+            assertThat(index.get(id)).isEqualTo(8);
+        }
+    }
+}
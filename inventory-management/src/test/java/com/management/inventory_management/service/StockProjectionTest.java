@@ -0,0 +1,158 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.repository.InventoryRepository;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockProjectionTest {
+
+    private record Row(Long itemId, Long stock, Long maxId) implements InventoryRepository.ItemLedgerStock {
+
+        @Override
+        public Long getItemId() {
+            return itemId;
+        }
+
+        @Override
+        public Long getStock() {
+            return stock;
+        }
+
+        @Override
+        public Long getMaxId() {
+            return maxId;
+        }
+    }
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @InjectMocks
+    private StockProjection stockProjection;
+
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stockProjection, "file", dir.resolve("stock-projection.bin").toString());
+        stockProjection.allocate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void load_NoSnapshot_BuildsFromDatabaseAndWritesSnapshot() throws Exception {
+        when(stockSnapshotRepository.findAllStock()).thenReturn(List.of(new Row(1L, 10L, 40L)));
+        when(inventoryRepository.sumStockAfterSnapshots()).thenReturn(List.of(new Row(1L, -3L, 45L), new Row(2L, 5L, 44L)));
+
+        stockProjection.load();
+
+        assertThat(stockProjection.getStock(1L)).isEqualTo(7);
+        assertThat(stockProjection.getStock(2L)).isEqualTo(5);
+        assertThat(stockProjection.getStock(3L)).isZero();
+        assertThat(dir.resolve("stock-projection.bin")).exists();
+    }
+
+    @Test
+    void getStock_BeforeLoad_ReturnsNull() {
+        assertThat(stockProjection.getStock(1L)).isNull();
+    }
+
+    @Test
+    void load_CleanSnapshot_ReplaysOnlyRowsAfterWatermark() throws Exception {
+        when(stockSnapshotRepository.findAllStock()).thenReturn(List.of(new Row(1L, 10L, 40L)));
+        stockProjection.load();
+        stockProjection.recordChange(2L, 41L, 4);
+        stockProjection.writeSnapshot();
+
+        StockProjection restarted = restart();
+        when(inventoryRepository.sumStockSince(41L)).thenReturn(List.of(new Row(1L, -2L, 42L)));
+        restarted.load();
+
+        assertThat(restarted.getStock(1L)).isEqualTo(8);
+        assertThat(restarted.getStock(2L)).isEqualTo(4);
+        verify(inventoryRepository, times(1)).sumStockAfterSnapshots();
+    }
+
+    @Test
+    void recordChange_RowCoveredBySnapshot_RestartRebuildsFromDatabase() throws Exception {
+        when(stockSnapshotRepository.findAllStock()).thenReturn(List.of(new Row(1L, 10L, 40L)));
+        stockProjection.load();
+
+        stockProjection.recordChange(1L, 30L, -10);
+
+        assertThat(stockProjection.getStock(1L)).isZero();
+        StockProjection restarted = restart();
+        restarted.load();
+        verify(inventoryRepository, never()).sumStockSince(anyLong());
+        verify(inventoryRepository, times(2)).sumStockAfterSnapshots();
+    }
+
+    @Test
+    void recordChange_AppliedOnlyAfterCommit() throws Exception {
+        stockProjection.load();
+        TransactionSynchronizationManager.initSynchronization();
+
+        stockProjection.recordChange(1L, 1L, 5);
+        stockProjection.recordChange(1L, 2L, 3);
+
+        assertThat(stockProjection.getStock(1L)).isZero();
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertThat(stockProjection.getStock(1L)).isEqualTo(8);
+    }
+
+    @Test
+    void recordChange_RolledBack_NotApplied() throws Exception {
+        stockProjection.load();
+        TransactionSynchronizationManager.initSynchronization();
+
+        stockProjection.recordChange(1L, 1L, 5);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertThat(stockProjection.getStock(1L)).isZero();
+        // The snapshot is not blocked by the finished transaction
+        stockProjection.writeSnapshot();
+        assertThat(Files.size(dir.resolve("stock-projection.bin"))).isEqualTo(32);
+    }
+
+    private StockProjection restart() {
+        StockProjection restarted = new StockProjection();
+        ReflectionTestUtils.setField(restarted, "inventoryRepository", inventoryRepository);
+        ReflectionTestUtils.setField(restarted, "stockSnapshotRepository", stockSnapshotRepository);
+        ReflectionTestUtils.setField(restarted, "file", dir.resolve("stock-projection.bin").toString());
+        restarted.allocate();
+        return restarted;
+    }
+}
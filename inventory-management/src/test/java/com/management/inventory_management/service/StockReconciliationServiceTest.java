@@ -0,0 +1,122 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.dto.ReconciliationReportDTO;
+import com.management.inventory_management.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockReconciliationServiceTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private StockService stockService;
+
+    // Unsharded: every query runs inline
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
+    @InjectMocks
+    private StockReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reconciliationService, "rangeSize", 10L);
+        ReflectionTestUtils.setField(reconciliationService, "parallelism", 2);
+    }
+
+    @Test
+    void reconcile_SplitsIdSpaceIntoRanges() {
+        when(itemRepository.findMinId()).thenReturn(1L);
+        when(itemRepository.findMaxId()).thenReturn(40L);
+        when(itemRepository.findStockDrift(anyLong(), anyLong())).thenReturn(List.of());
+
+        ReconciliationReportDTO report = reconciliationService.reconcile(false);
+
+        assertThat(report.getRangesScanned()).isEqualTo(4);
+        assertThat(report.getDriftedItems()).isZero();
+        verify(itemRepository).findStockDrift(1L, 10L);
+        verify(itemRepository).findStockDrift(11L, 20L);
+        verify(itemRepository).findStockDrift(21L, 30L);
+        verify(itemRepository).findStockDrift(31L, 40L);
+        verify(stockService, never()).repairStock(anyCollection());
+    }
+
+    @Test
+    void reconcile_ReportsDriftInIdOrder() {
+        when(itemRepository.findMinId()).thenReturn(1L);
+        when(itemRepository.findMaxId()).thenReturn(20L);
+        when(itemRepository.findStockDrift(1L, 10L)).thenReturn(List.of(drift(3L, 5, 8)));
+        when(itemRepository.findStockDrift(11L, 20L)).thenReturn(List.of(drift(15L, 0, -2)));
+
+        ReconciliationReportDTO report = reconciliationService.reconcile(false);
+
+        assertThat(report.getDriftedItems()).isEqualTo(2);
+        assertThat(report.getDrifts()).extracting("itemId").containsExactly(3L, 15L);
+        assertThat(report.getDrifts().get(0).getExpectedStock()).isEqualTo(8);
+        assertThat(report.getRepairedItems()).isZero();
+    }
+
+    @Test
+    void reconcile_Repair_InBatches() {
+        ReflectionTestUtils.setField(reconciliationService, "repairBatchSize", 2);
+        when(itemRepository.findMinId()).thenReturn(1L);
+        when(itemRepository.findMaxId()).thenReturn(5L);
+        when(itemRepository.findStockDrift(1L, 5L))
+                .thenReturn(List.of(drift(1L, 1, 2), drift(2L, 1, 2), drift(4L, 1, 2)));
+        when(stockService.repairStock(anyCollection())).thenAnswer(invocation ->
+                ((Collection<?>) invocation.getArgument(0)).size());
+
+        ReconciliationReportDTO report = reconciliationService.reconcile(true);
+
+        assertThat(report.getRepairedItems()).isEqualTo(3);
+        verify(stockService).repairStock(List.of(1L, 2L));
+        verify(stockService).repairStock(List.of(4L));
+    }
+
+    @Test
+    void reconcile_NoItems() {
+        when(itemRepository.findMinId()).thenReturn(null);
+        when(itemRepository.findMaxId()).thenReturn(null);
+
+        ReconciliationReportDTO report = reconciliationService.reconcile(true);
+
+        assertThat(report.getRangesScanned()).isZero();
+        verify(itemRepository, never()).findStockDrift(anyLong(), anyLong());
+    }
+
+    private static ItemRepository.StockDrift drift(Long id, Integer currentStock, Integer expectedStock) {
+        return new ItemRepository.StockDrift() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getCurrentStock() {
+                return currentStock;
+            }
+
+            @Override
+            public Integer getExpectedStock() {
+                return expectedStock;
+            }
+        };
+    }
+}
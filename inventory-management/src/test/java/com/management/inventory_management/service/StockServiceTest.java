@@ -2,20 +2,38 @@ package com.management.inventory_management.service;
 
 
 import com.management.inventory_management.exception.InsufficientStockException;
+import com.management.inventory_management.model.InventoryType;
 import com.management.inventory_management.model.Item;
 import com.management.inventory_management.repository.ItemRepository;
+import com.management.inventory_management.repository.StockBucketRepository;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.Query;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +42,24 @@ public class StockServiceTest {
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Mock
+    private StockBucketRepository stockBucketRepository;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Query query;
+
     @InjectMocks
     private StockService stockService;
 
@@ -31,6 +67,7 @@ public class StockServiceTest {
 
     @BeforeEach
     void setUp() {
+
         testItem = new Item();
         testItem.setId(1L);
         testItem.setName("Test Item");
@@ -39,55 +76,247 @@ public class StockServiceTest {
 
     @Test
     void updateStock_Addition_Success() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(itemRepository.calculateItemStock(1L)).thenReturn(10);
+        when(itemRepository.incrementStock(1L, 5)).thenReturn(1);
 
         stockService.updateStock(1L, 5, true);
 
-        verify(itemRepository).save(argThat(item ->
-                item.getCurrentStock().equals(15)
-        ));
+        verify(itemRepository).incrementStock(1L, 5);
+        verify(itemRepository, never()).save(any(Item.class));
+        verify(itemCache).evictStock(1L);
     }
 
     @Test
     void updateStock_Subtraction_Success() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(itemRepository.calculateItemStock(1L)).thenReturn(10);
+        when(itemRepository.decrementStockIfAvailable(1L, 5)).thenReturn(1);
 
         stockService.updateStock(1L, 5, false);
 
-        verify(itemRepository).save(argThat(item ->
-                item.getCurrentStock().equals(5)
-        ));
+        verify(itemRepository).decrementStockIfAvailable(1L, 5);
+        verify(itemRepository, never()).findById(1L);
+        verify(itemCache).evictStock(1L);
     }
 
     @Test
     void updateStock_InsufficientStock() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
-        when(itemRepository.calculateItemStock(1L)).thenReturn(10);
+        when(itemRepository.decrementStockIfAvailable(1L, 15)).thenReturn(0);
+        when(itemCache.find(1L)).thenReturn(Optional.of(new ItemCache.CachedItem(1L, "Test Item", 100.0, null)));
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(10));
 
-        assertThrows(InsufficientStockException.class, () ->
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class, () ->
                 stockService.updateStock(1L, 15, false)
         );
+        assertEquals("Stok barang tidak mencukupi Test Item. Diperlikan: 15, Tersedia: 10", ex.getMessage());
+        verify(itemCache, never()).evictStock(any());
+        assertEquals(1.0, meterRegistry.counter("inventory.stock.insufficient").count());
+    }
+
+    @Test
+    void repairStock_EvictsRepairedItems() {
+        when(itemRepository.repairStock(List.of(1L, 2L))).thenReturn(2);
+
+        assertEquals(2, stockService.repairStock(List.of(1L, 2L)));
+        verify(itemCache).evictStock(1L);
+        verify(itemCache).evictStock(2L);
+        // Without hot items there are no buckets to drop
+        verifyNoInteractions(stockBucketRepository);
+    }
+
+    @Test
+    void repairStock_HotItems_DropsBuckets() {
+        HotItemSplitter hotItemSplitter = mock(HotItemSplitter.class);
+        ReflectionTestUtils.setField(stockService, "hotItemSplitter", hotItemSplitter);
+        when(itemRepository.repairStock(List.of(1L, 2L))).thenReturn(2);
+
+        stockService.repairStock(List.of(1L, 2L));
+
+        verify(stockBucketRepository).deleteByItemId(1L);
+        verify(stockBucketRepository).deleteByItemId(2L);
+        verify(hotItemSplitter).forget(1L);
+        verify(hotItemSplitter).forget(2L);
     }
 
     @Test
     void updateStock_ItemNotFound() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(itemRepository.incrementStock(1L, 5)).thenReturn(0);
 
         assertThrows(EntityNotFoundException.class, () ->
                 stockService.updateStock(1L, 5, true)
         );
     }
 
+    @Test
+    void updateStock_Withdrawal_ItemNotFound() {
+        when(itemRepository.decrementStockIfAvailable(1L, 5)).thenReturn(0);
+        when(itemCache.find(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () ->
+                stockService.updateStock(1L, 5, false)
+        );
+    }
+
+    @Test
+    void applyStockDelta_Negative_Withdraws() {
+        when(itemRepository.decrementStockIfAvailable(1L, 3)).thenReturn(1);
+
+        stockService.applyStockDelta(1L, -3);
+
+        verify(itemRepository).decrementStockIfAvailable(1L, 3);
+    }
+
+    @Test
+    void applyStockDelta_Zero_NoUpdate() {
+        stockService.applyStockDelta(1L, 0);
+
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void applyStockDeltas_SeveralItems_OneGuardedUpdateInIdOrder() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(2);
+
+        stockService.applyStockDeltas(Map.of(7L, -2, 3L, 4, 5L, 0));
+
+        verify(query).setParameter(1, 3L);
+        verify(query).setParameter(2, 4);
+        verify(query).setParameter(3, 7L);
+        verify(query).setParameter(4, -2);
+        verify(query, times(1)).executeUpdate();
+        verify(itemRepository, never()).decrementStockIfAvailable(anyLong(), anyInt());
+        verify(itemCache).evictStock(3L);
+        verify(itemCache).evictStock(7L);
+    }
+
+    @Test
+    void applyStockDeltas_OneItemShort_ThrowsForThatItem() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(1);
+        when(itemRepository.findStockByIdIn(any())).thenReturn(List.of(stock(1L, 8), stock(2L, 1)));
+        when(itemCache.find(2L)).thenReturn(Optional.of(new ItemCache.CachedItem(2L, "Short Item", 100.0, null)));
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> stockService.applyStockDeltas(Map.of(1L, -2, 2L, -3)));
+
+        assertEquals("Stok barang tidak mencukupi Short Item. Diperlikan: 3, Tersedia: 1", ex.getMessage());
+    }
+
+    @Test
+    void applyStockDeltas_UnknownItem_ThrowsNotFound() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(1);
+        when(itemRepository.findStockByIdIn(any())).thenReturn(List.of(stock(1L, 8)));
+
+        assertThrows(EntityNotFoundException.class, () -> stockService.applyStockDeltas(Map.of(1L, -2, 2L, -3)));
+    }
+
+    @Test
+    void applyStockDeltas_SingleItem_UsesGuardedDecrement() {
+        when(itemRepository.decrementStockIfAvailable(1L, 3)).thenReturn(1);
+
+        stockService.applyStockDeltas(Map.of(1L, -3));
+
+        verify(itemRepository).decrementStockIfAvailable(1L, 3);
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void tryWithdraw_InsufficientStock_ReturnsFalse() {
+        when(itemRepository.decrementStockIfAvailable(1L, 15)).thenReturn(0);
+
+        assertFalse(stockService.tryWithdraw(1L, 15));
+    }
+
     @Test
     void getCurrentStock_Success() {
-        when(itemRepository.calculateItemStock(1L)).thenReturn(10);
+        when(stockSnapshotRepository.calculateCurrentStock(1L)).thenReturn(10);
 
         Integer result = stockService.getCurrentStock(1L);
 
         assertEquals(10, result);
-        verify(itemRepository).calculateItemStock(1L);
+        verify(stockSnapshotRepository).calculateCurrentStock(1L);
+    }
+
+
+    @Test
+    void insertLedgerRow_GroupCommit_InsufficientStock() {
+        StockGroupCommitter groupCommitter = mock(StockGroupCommitter.class);
+        ReflectionTestUtils.setField(stockService, "groupCommitter", groupCommitter);
+        LocalDateTime date = LocalDateTime.now();
+        StockGroupCommitter.LedgerRow row = new StockGroupCommitter.LedgerRow(42L, InventoryType.W, 15, date);
+        when(groupCommitter.ledgerRow(InventoryType.W, 15, date)).thenReturn(row);
+        when(groupCommitter.submit(1L, -15, row, null)).thenReturn(CompletableFuture.completedFuture(false));
+        when(itemCache.find(1L)).thenReturn(Optional.of(new ItemCache.CachedItem(1L, "Test Item", 100.0, null)));
+        when(itemRepository.findCurrentStockById(1L)).thenReturn(Optional.of(10));
+
+        assertThrows(InsufficientStockException.class,
+                () -> stockService.insertLedgerRow(1L, InventoryType.W, 15, date));
+
+        verify(itemCache, never()).evictStock(1L);
+    }
+
+    @Test
+    void insertLedgerRow_GroupCommit_ReturnsCommittedRowId() {
+        StockGroupCommitter groupCommitter = mock(StockGroupCommitter.class);
+        ReflectionTestUtils.setField(stockService, "groupCommitter", groupCommitter);
+        LocalDateTime date = LocalDateTime.now();
+        StockGroupCommitter.LedgerRow row = new StockGroupCommitter.LedgerRow(42L, InventoryType.T, 5, date);
+        when(groupCommitter.ledgerRow(InventoryType.T, 5, date)).thenReturn(row);
+        when(groupCommitter.submit(1L, 5, row, null)).thenReturn(CompletableFuture.completedFuture(true));
+
+        assertEquals(42L, stockService.insertLedgerRow(1L, InventoryType.T, 5, date));
+
+        verify(itemCache).evictStock(1L);
+    }
+
+    @Test
+    void applyStockDelta_GroupCommit_HandsRowsToWorker() {
+        StockGroupCommitter groupCommitter = mock(StockGroupCommitter.class);
+        ReflectionTestUtils.setField(stockService, "groupCommitter", groupCommitter);
+        Consumer<JdbcTemplate> rows = jdbcTemplate -> { };
+        when(groupCommitter.submit(1L, -3, null, rows)).thenReturn(CompletableFuture.completedFuture(true));
+
+        stockService.applyStockDelta(1L, -3, rows);
+
+        verify(itemCache).evictStock(1L);
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void updateStock_GroupCommit_StaysInCallerTransaction() {
+        StockGroupCommitter groupCommitter = mock(StockGroupCommitter.class);
+        ReflectionTestUtils.setField(stockService, "groupCommitter", groupCommitter);
+        when(itemRepository.decrementStockIfAvailable(1L, 5)).thenReturn(1);
+
+        stockService.updateStock(1L, 5, false);
+
+        verifyNoInteractions(groupCommitter);
     }
 
+    @Test
+    void applyStockDeltas_SplitItem_GoesItemByItem() {
+        HotItemSplitter hotItemSplitter = mock(HotItemSplitter.class);
+        ReflectionTestUtils.setField(stockService, "hotItemSplitter", hotItemSplitter);
+        when(hotItemSplitter.isSplit(1L)).thenReturn(true);
+        when(hotItemSplitter.tryWithdraw(1L, 2)).thenReturn(true);
+        when(hotItemSplitter.tryWithdraw(2L, 3)).thenReturn(true);
+
+        stockService.applyStockDeltas(Map.of(1L, -2, 2L, -3));
+
+        verify(entityManager, never()).createNativeQuery(anyString());
+        verify(itemRepository, never()).decrementStockIfAvailable(anyLong(), anyInt());
+    }
+
+    private static ItemRepository.ItemStock stock(Long id, Integer currentStock) {
+        return new ItemRepository.ItemStock() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getCurrentStock() {
+                return currentStock;
+            }
+        };
+    }
 }
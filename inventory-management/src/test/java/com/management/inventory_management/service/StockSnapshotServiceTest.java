@@ -0,0 +1,111 @@
+package com.management.inventory_management.service;
+
+import com.management.inventory_management.model.StockSnapshot;
+import com.management.inventory_management.repository.InventoryRepository;
+import com.management.inventory_management.repository.StockSnapshotRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockSnapshotServiceTest {
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @InjectMocks
+    private StockSnapshotService stockSnapshotService;
+
+    private StockSnapshot testSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        testSnapshot = new StockSnapshot();
+        testSnapshot.setItemId(1L);
+        testSnapshot.setStock(100);
+        testSnapshot.setLastInventoryId(50L);
+    }
+
+    @Test
+    void compact_MovesCheckpointForward() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.of(testSnapshot));
+        when(inventoryRepository.findMaxIdByItemId(1L)).thenReturn(80L);
+        when(inventoryRepository.sumStockBetween(1L, 50L, 80L)).thenReturn(-30);
+
+        stockSnapshotService.compact(1L);
+
+        assertThat(testSnapshot.getStock()).isEqualTo(70);
+        assertThat(testSnapshot.getLastInventoryId()).isEqualTo(80L);
+    }
+
+    @Test
+    void compact_NoNewLedgerRows() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.of(testSnapshot));
+        when(inventoryRepository.findMaxIdByItemId(1L)).thenReturn(50L);
+
+        stockSnapshotService.compact(1L);
+
+        assertThat(testSnapshot.getStock()).isEqualTo(100);
+        verify(inventoryRepository, never()).sumStockBetween(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void compact_SnapshotNotFound() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> stockSnapshotService.compact(1L));
+    }
+
+    @Test
+    void recordLedgerChange_CoveredRow_AdjustsSnapshot() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.of(testSnapshot));
+
+        stockSnapshotService.recordLedgerChange(1L, 40L, -10);
+
+        assertThat(testSnapshot.getStock()).isEqualTo(90);
+    }
+
+    @Test
+    void recordLedgerChange_RowAfterCheckpoint_Ignored() {
+        when(stockSnapshotRepository.findLockedByItemId(1L)).thenReturn(Optional.of(testSnapshot));
+
+        stockSnapshotService.recordLedgerChange(1L, 51L, -10);
+
+        assertThat(testSnapshot.getStock()).isEqualTo(100);
+    }
+
+    @Test
+    void ensureSnapshot_CreatesEmptySnapshot() {
+        when(stockSnapshotRepository.existsById(2L)).thenReturn(false);
+
+        stockSnapshotService.ensureSnapshot(2L);
+
+        verify(stockSnapshotRepository).save(argThat(snapshot ->
+                snapshot.getItemId().equals(2L) && snapshot.getStock() == 0 && snapshot.getLastInventoryId() == 0
+        ));
+    }
+
+    @Test
+    void ensureSnapshot_AlreadyExists() {
+        when(stockSnapshotRepository.existsById(1L)).thenReturn(true);
+
+        stockSnapshotService.ensureSnapshot(1L);
+
+        verify(stockSnapshotRepository, never()).save(any(StockSnapshot.class));
+    }
+}